@@ -0,0 +1,464 @@
+package com.lotaris.junit.async;
+
+import com.lotaris.junit.async.AsyncTestUtility.AsyncTestException;
+import com.lotaris.junit.perf.LatencyHistogram;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.fail;
+
+/**
+ * Concurrency stress harness.
+ *
+ * Runs a task on a number of threads for a number of iterations each. All the threads
+ * are released together once they are ready, to maximize the contention. The latency of
+ * each operation, the throughput, the errors and the time spent blocked on monitors are
+ * recorded. Once all the threads are done, the invariants are verified to detect the lost
+ * updates.
+ *
+ * Typical usage would be :
+ *
+ * new StressTest(incrementCounter()).threads(8).iterations(100000).invariant(counterIsExact()).run();
+ *
+ * The test fails with a report when an invariant does not hold or when the errors or the
+ * contention exceed their thresholds.
+ *
+ * @author Laurent Prevost <laurent.prevost@lotaris.com>
+ */
+public class StressTest {
+
+	/**
+	 * Maximum number of errors kept for the report
+	 */
+	private static final int MAX_REPORTED_ERRORS = 5;
+
+	//<editor-fold defaultstate="collapsed" desc="Inner Classes">
+	/**
+	 * Operation executed concurrently by the stress test
+	 */
+	public abstract static class StressTask {
+
+		/**
+		 * Executes one operation of the stress test.
+		 *
+		 * @param thread The index of the executing thread, from 0 to the number of threads excluded
+		 * @param iteration The index of the iteration in the executing thread
+		 * @throws Exception Counted as an error of the stress test
+		 */
+		public abstract void execute(int thread, int iteration) throws Exception;
+
+	}
+
+	/**
+	 * Invariant verified once all the threads of the stress test are done
+	 */
+	public abstract static class Invariant {
+
+		/**
+		 * Description of the invariant, used in the report
+		 */
+		private final String description;
+
+		public Invariant(String description) {
+			this.description = description;
+		}
+
+		/**
+		 * Verifies the invariant, e.g. that a counter equals the number of operations.
+		 *
+		 * @param result The result of the stress test
+		 * @return true if the invariant holds
+		 * @throws Exception Considered as a violation of the invariant
+		 */
+		public abstract boolean holds(StressResult result) throws Exception;
+
+		public String getDescription() {
+			return description;
+		}
+
+	}
+
+	/**
+	 * Measurements of a stress test run
+	 */
+	public static class StressResult {
+
+		private final int threads;
+		private final int iterations;
+		private final long wallTime;
+		private final LatencyHistogram latencies = new LatencyHistogram();
+		private final List<Throwable> errors = new ArrayList<>();
+		private long errorCount;
+		private long blockedCount;
+		private long blockedTime = -1;
+		private final List<String> violations = new ArrayList<>();
+
+		private StressResult(int threads, int iterations, long wallTime) {
+			this.threads = threads;
+			this.iterations = iterations;
+			this.wallTime = wallTime;
+		}
+
+		//<editor-fold defaultstate="collapsed" desc="Getters">
+		public int getThreads() {
+			return threads;
+		}
+
+		public int getIterations() {
+			return iterations;
+		}
+
+		/**
+		 * @return The number of operations executed, including the failed ones
+		 */
+		public long getOperations() {
+			return (long) threads * iterations;
+		}
+
+		/**
+		 * @return The time in nanoseconds between the release of the threads and the end of the last one
+		 */
+		public long getWallTime() {
+			return wallTime;
+		}
+
+		/**
+		 * @return The number of operations per second
+		 */
+		public double getThroughput() {
+			return wallTime > 0 ? getOperations() * (double) TimeUnit.SECONDS.toNanos(1) / wallTime : 0;
+		}
+
+		public LatencyHistogram getLatencies() {
+			return latencies;
+		}
+
+		public long getErrorCount() {
+			return errorCount;
+		}
+
+		/**
+		 * @return The first errors raised by the operations
+		 */
+		public List<Throwable> getErrors() {
+			return Collections.unmodifiableList(errors);
+		}
+
+		/**
+		 * @return The number of times the threads blocked to enter a monitor
+		 */
+		public long getBlockedCount() {
+			return blockedCount;
+		}
+
+		/**
+		 * @return The total time in milliseconds the threads were blocked to enter a monitor, or -1 if the JVM does not measure it
+		 */
+		public long getBlockedTime() {
+			return blockedTime;
+		}
+
+		/**
+		 * @return The ratio of the time the threads spent blocked, or 0 if the JVM does not measure it
+		 */
+		public double getContention() {
+			final long available = TimeUnit.NANOSECONDS.toMillis(wallTime) * threads;
+			return blockedTime > 0 && available > 0 ? (double) blockedTime / available : 0;
+		}
+
+		/**
+		 * @return The descriptions of the invariants which do not hold
+		 */
+		public List<String> getViolations() {
+			return Collections.unmodifiableList(violations);
+		}
+		//</editor-fold>
+
+		@Override
+		public String toString() {
+			final StringBuilder sb = new StringBuilder()
+				.append(threads).append(" threads x ").append(iterations).append(" iterations in ").append(LatencyHistogram.format(wallTime))
+				.append(String.format(" (%.0f ops/s)", getThroughput()))
+				.append("\n  latencies: ").append(latencies)
+				.append("\n  blocked: ").append(blockedCount).append(" times");
+
+			if (blockedTime >= 0) {
+				sb.append(", ").append(blockedTime).append("ms").append(String.format(" (%.1f%% of the thread time)", getContention() * 100));
+			}
+
+			sb.append("\n  errors: ").append(errorCount);
+			for (Throwable error : errors) {
+				sb.append("\n    - ").append(error);
+			}
+
+			for (String violation : violations) {
+				sb.append("\n  violated invariant: ").append(violation);
+			}
+
+			return sb.toString();
+		}
+	}
+
+	/**
+	 * Measurements of one thread, merged in the result once the thread is done
+	 */
+	private static class Worker implements Runnable {
+
+		private final StressTask task;
+		private final int thread;
+		private final int iterations;
+		private final CountDownLatch ready;
+		private final CountDownLatch start;
+		private final CountDownLatch done;
+		private final LatencyHistogram latencies = new LatencyHistogram();
+		private final List<Throwable> errors = new ArrayList<>();
+		private long errorCount;
+		private long blockedCount;
+		private long blockedTime = -1;
+		private long end;
+
+		private Worker(StressTask task, int thread, int iterations, CountDownLatch ready, CountDownLatch start, CountDownLatch done) {
+			this.task = task;
+			this.thread = thread;
+			this.iterations = iterations;
+			this.ready = ready;
+			this.start = start;
+			this.done = done;
+		}
+
+		@Override
+		public void run() {
+			try {
+				ready.countDown();
+				start.await();
+
+				for (int i = 0; i < iterations; i++) {
+					final long operationStart = System.nanoTime();
+					try {
+						task.execute(thread, i);
+					} catch (Throwable t) {
+						errorCount++;
+						if (errors.size() < MAX_REPORTED_ERRORS) {
+							errors.add(t);
+						}
+					}
+					latencies.record(System.nanoTime() - operationStart);
+				}
+
+				end = System.nanoTime();
+
+				// The thread information is only available while the thread is alive
+				final ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+				final ThreadInfo info = bean.getThreadInfo(Thread.currentThread().getId());
+				if (info != null) {
+					blockedCount = info.getBlockedCount();
+					blockedTime = info.getBlockedTime();
+				}
+			} catch (InterruptedException ie) {
+				Thread.currentThread().interrupt();
+			} finally {
+				done.countDown();
+			}
+		}
+	}
+	//</editor-fold>
+
+	private final StressTask task;
+	private int threads = Runtime.getRuntime().availableProcessors();
+	private int iterations = 1000;
+	private final List<Invariant> invariants = new ArrayList<>();
+	private long maxErrors;
+	private double maxContention = 1;
+	private long timeout = TimeUnit.MINUTES.toMillis(1);
+
+	/**
+	 * Constructor. By default, the task runs on one thread per processor for 1000 iterations
+	 * each and no error is tolerated.
+	 *
+	 * @param task The task to execute concurrently
+	 */
+	public StressTest(StressTask task) {
+		this.task = task;
+	}
+
+	//<editor-fold defaultstate="collapsed" desc="Configuration">
+	/**
+	 * @param threads The number of threads executing the task
+	 * @return This stress test
+	 */
+	public StressTest threads(int threads) {
+		if (threads <= 0) {
+			throw new IllegalArgumentException("The number of threads must be positive, was " + threads);
+		}
+		this.threads = threads;
+		return this;
+	}
+
+	/**
+	 * @param iterations The number of times each thread executes the task
+	 * @return This stress test
+	 */
+	public StressTest iterations(int iterations) {
+		if (iterations <= 0) {
+			throw new IllegalArgumentException("The number of iterations must be positive, was " + iterations);
+		}
+		this.iterations = iterations;
+		return this;
+	}
+
+	/**
+	 * @param invariant An invariant to verify once all the threads are done
+	 * @return This stress test
+	 */
+	public StressTest invariant(Invariant invariant) {
+		invariants.add(invariant);
+		return this;
+	}
+
+	/**
+	 * @param maxErrors The maximum number of operations which may fail
+	 * @return This stress test
+	 */
+	public StressTest maxErrors(long maxErrors) {
+		this.maxErrors = maxErrors;
+		return this;
+	}
+
+	/**
+	 * @param maxContention The maximum ratio of the thread time which may be spent blocked on monitors, between 0 and 1
+	 * @return This stress test
+	 */
+	public StressTest maxContention(double maxContention) {
+		this.maxContention = maxContention;
+		return this;
+	}
+
+	/**
+	 * @param timeout The maximum time in milliseconds to wait for all the threads to be done
+	 * @return This stress test
+	 */
+	public StressTest timeout(long timeout) {
+		this.timeout = timeout;
+		return this;
+	}
+	//</editor-fold>
+
+	/**
+	 * Runs the stress test and verifies the invariants and the thresholds.
+	 *
+	 * @return The result of the stress test
+	 * @throws AsyncTestException if the threads are not done before the timeout
+	 * @throws AssertionError if an invariant does not hold or a threshold is exceeded
+	 */
+	public StressResult run() throws AsyncTestException {
+		final StressResult result = execute();
+
+		for (Invariant invariant : invariants) {
+			try {
+				if (!invariant.holds(result)) {
+					result.violations.add(invariant.getDescription());
+				}
+			} catch (Exception e) {
+				result.violations.add(invariant.getDescription() + " (" + e + ")");
+			}
+		}
+
+		if (!result.violations.isEmpty()) {
+			fail("Stress test violated " + result.violations.size() + " invariant(s): " + result);
+		} else if (result.errorCount > maxErrors) {
+			fail("Stress test raised " + result.errorCount + " error(s) but at most " + maxErrors + " were expected: " + result);
+		} else if (result.getContention() > maxContention) {
+			fail(String.format("Stress test spent %.1f%% of the thread time blocked but at most %.1f%% was expected: ", result.getContention() * 100, maxContention * 100) + result);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Enables the thread contention monitoring of the JVM for the duration of the test, if it
+	 * is not already, and runs the threads.
+	 */
+	private StressResult execute() throws AsyncTestException {
+		final ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		final boolean enableContentionMonitoring = bean.isThreadContentionMonitoringSupported() && !bean.isThreadContentionMonitoringEnabled();
+		if (enableContentionMonitoring) {
+			bean.setThreadContentionMonitoringEnabled(true);
+		}
+
+		try {
+			return executeThreads();
+		} finally {
+			if (enableContentionMonitoring) {
+				bean.setThreadContentionMonitoringEnabled(false);
+			}
+		}
+	}
+
+	/**
+	 * Starts the threads together and merges their measurements.
+	 */
+	private StressResult executeThreads() throws AsyncTestException {
+		final CountDownLatch ready = new CountDownLatch(threads);
+		final CountDownLatch start = new CountDownLatch(1);
+		final CountDownLatch done = new CountDownLatch(threads);
+
+		final List<Worker> workers = new ArrayList<>(threads);
+		final List<Thread> workerThreads = new ArrayList<>(threads);
+		for (int i = 0; i < threads; i++) {
+			final Worker worker = new Worker(task, i, iterations, ready, start, done);
+			final Thread thread = new Thread(worker, "stress-" + i);
+			thread.setDaemon(true);
+			workers.add(worker);
+			workerThreads.add(thread);
+			thread.start();
+		}
+
+		final long startTime;
+		try {
+			ready.await();
+			startTime = System.nanoTime();
+			start.countDown();
+
+			if (!done.await(timeout, TimeUnit.MILLISECONDS)) {
+				for (Thread thread : workerThreads) {
+					thread.interrupt();
+				}
+				throw new AsyncTestException("Stress test threads not done after " + timeout + " milliseconds");
+			}
+		} catch (InterruptedException ie) {
+			for (Thread thread : workerThreads) {
+				thread.interrupt();
+			}
+			Thread.currentThread().interrupt();
+			throw new AsyncTestException("Interrupted while waiting for the stress test threads", ie);
+		}
+
+		long endTime = startTime;
+		for (Worker worker : workers) {
+			endTime = Math.max(endTime, worker.end);
+		}
+
+		final StressResult result = new StressResult(threads, iterations, endTime - startTime);
+		for (Worker worker : workers) {
+			result.latencies.add(worker.latencies);
+			result.errorCount += worker.errorCount;
+			result.blockedCount += worker.blockedCount;
+			if (worker.blockedTime >= 0) {
+				result.blockedTime = Math.max(result.blockedTime, 0) + worker.blockedTime;
+			}
+			for (Throwable error : worker.errors) {
+				if (result.errors.size() < MAX_REPORTED_ERRORS) {
+					result.errors.add(error);
+				}
+			}
+		}
+
+		return result;
+	}
+}
@@ -1,39 +1,40 @@
 package com.lotaris.junit;
 
+import com.lotaris.junit.diff.Diff;
+import com.lotaris.junit.helpers.AssociationOverrideDetails;
 import com.lotaris.junit.helpers.AttributeOverrideDetails;
+import com.lotaris.junit.helpers.ReachabilityTracker;
+import com.lotaris.junit.helpers.RetainingPathFinder;
+import com.lotaris.junit.json.JsonContractVerifier;
+import com.lotaris.junit.perf.AllocationMeter;
+import com.lotaris.junit.perf.LatencyHistogram;
+import com.lotaris.junit.perf.Measurements;
+import com.lotaris.junit.validation.ConstraintModel;
+import com.lotaris.junit.validation.ConstraintRule;
+import java.io.IOException;
+import java.io.InputStream;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
-import javax.persistence.AttributeOverride;
-import javax.persistence.AttributeOverrides;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import javax.persistence.CascadeType;
-import javax.persistence.CollectionTable;
-import javax.persistence.Column;
-import javax.persistence.ElementCollection;
 import javax.persistence.EnumType;
-import javax.persistence.Enumerated;
 import javax.persistence.FetchType;
-import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
-import javax.persistence.Id;
 import javax.persistence.Index;
-import javax.persistence.Inheritance;
 import javax.persistence.InheritanceType;
-import javax.persistence.JoinColumn;
-import javax.persistence.ManyToOne;
-import javax.persistence.MapKeyColumn;
-import javax.persistence.OneToMany;
-import javax.persistence.OneToOne;
-import javax.persistence.Table;
-import javax.persistence.Temporal;
 import javax.persistence.TemporalType;
 import javax.persistence.UniqueConstraint;
 import org.codehaus.jackson.annotate.JsonProperty;
 
 import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
 
 /**
  * Additional assertions for unit tests.
@@ -42,6 +43,11 @@ import static org.junit.Assert.*;
  */
 public final class Assert {
 
+	/**
+	 * Maximum number of objects still reachable described when an object was expected to become unreachable
+	 */
+	private static final int MAX_REPORTED_LEAKS = 5;
+
 	//<editor-fold defaultstate="collapsed" desc="Assertions on class">
 	/**
 	 * Asserts that an Exception of the class (or subclass) is thrown.
@@ -57,6 +63,89 @@ public final class Assert {
 		}
 	}
 	
+	/**
+	 * Asserts that the object created by the specified factory becomes unreachable once the
+	 * factory returns, i.e. that it is not retained by a cache, a listener registry or any
+	 * other long-lived structure.
+	 *
+	 * <p>
+	 * The suspected roots are only used to describe the chain of references retaining the
+	 * object when the assertion fails. A class can be given as root to explore its static fields.
+	 *
+	 * <p><pre>
+	 * assertBecomesUnreachable(new Callable&lt;Object&gt;() {
+	 *   public Object call() {
+	 *     Listener listener = new Listener();
+	 *     registry.register(listener);
+	 *     registry.unregister(listener);
+	 *     return listener;
+	 *   }
+	 * }, registry);
+	 * </pre>
+	 *
+	 * @param factory the code creating the object, which must not keep any reference to it
+	 * @param roots the objects suspected to retain the object
+	 */
+	public static void assertBecomesUnreachable(Callable<?> factory, Object... roots) {
+		assertUnreachable(new ReachabilityTracker(Collections.singletonList(create(factory))), roots);
+	}
+
+	/**
+	 * Asserts that all the objects of the collection created by the specified factory become
+	 * unreachable once the factory returns. The collection itself is not retained.
+	 *
+	 * @param factory the code creating the objects, which must not keep any reference to them
+	 * @param roots the objects suspected to retain the objects, used to describe the retaining paths
+	 * @see #assertBecomesUnreachable(java.util.concurrent.Callable, java.lang.Object...)
+	 */
+	public static void assertAllBecomeUnreachable(Callable<? extends Collection<?>> factory, Object... roots) {
+		assertUnreachable(new ReachabilityTracker(create(factory)), roots);
+	}
+
+	/**
+	 * Waits for the tracked objects to become unreachable, failing with their retaining paths otherwise.
+	 */
+	private static void assertUnreachable(ReachabilityTracker tracker, Object[] roots) {
+		try {
+			if (tracker.awaitUnreachable()) {
+				return;
+			}
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			throw new AssertionError("Interrupted while waiting for the objects to become unreachable", ie);
+		}
+
+		List<Object> reachable = tracker.getReachable();
+		RetainingPathFinder finder = new RetainingPathFinder(roots);
+		StringBuilder message = new StringBuilder("Expected ").append(tracker.size()).append(" object(s) to become unreachable but ")
+			.append(reachable.size()).append(" are still reachable:");
+
+		for (Object object : reachable.subList(0, Math.min(reachable.size(), MAX_REPORTED_LEAKS))) {
+			message.append("\n  - ").append(object.getClass().getName()).append('@').append(Integer.toHexString(System.identityHashCode(object)));
+			if (roots.length == 0) {
+				message.append(": give the suspected roots to find out the retaining path");
+			} else {
+				String path = finder.findPath(object);
+				message.append(path != null ? ": retained by " + path : ": not retained by the suspected roots");
+			}
+		}
+
+		fail(message.toString());
+	}
+
+	/**
+	 * Calls a factory, reporting its exceptions as assertion errors.
+	 */
+	private static <T> T create(Callable<T> factory) {
+		try {
+			return factory.call();
+		} catch (RuntimeException re) {
+			throw re;
+		} catch (Exception e) {
+			throw new AssertionError("The factory has thrown an exception: " + e, e);
+		}
+	}
+
 	/**
 	 * Asserts that the specified class is annotated with the specified annotation.
 	 *
@@ -150,10 +239,7 @@ public final class Assert {
 	 * @return an array of UniqueConstraint
 	 */
 	public static UniqueConstraint[] assertNumberOfUniqueConstraintsOnClass(int n, Class c) {
-		Table tableAnnotation = assertAnnotationPresentOnClass(Table.class, c);
-		UniqueConstraint[] constraints = tableAnnotation.uniqueConstraints();
-		assertEquals("Expected class " + c.getName() + " to have exactly " + n + " unique constraints.", n, constraints.length);
-		return constraints;
+		return JpaAssertions.assertNumberOfUniqueConstraintsOnClass(n, c);
 	}
 	
 	/**
@@ -163,7 +249,7 @@ public final class Assert {
 	 * @param expectedGroups the expected column names in the correct order
 	 */
 	public static void assertUniqueConstraintColumnNames(UniqueConstraint uniqueConstraint, String... expectedNames) {
-		assertTrue(Arrays.equals(uniqueConstraint.columnNames(), expectedNames));
+		JpaAssertions.assertUniqueConstraintColumnNames(uniqueConstraint, expectedNames);
 	}
 	
 	/**
@@ -177,12 +263,7 @@ public final class Assert {
 	 * @param indexes the indexes for the table - (set to null to check that the default value is used)
 	 */
 	public static void assertTableAnnotation(Class c, String name, String catalog, String schema, UniqueConstraint[] uniqueConstraints, Index[] indexes) {
-		Table annotation = assertAnnotationPresentOnClass("Annotation was not found on class", Table.class, c);
-		assertEquals(name != null ? name : "", annotation.name());
-		assertEquals(catalog != null ? catalog : "", annotation.catalog());
-		assertEquals(schema != null ? schema : "", annotation.schema());
-		assertTrue(Arrays.equals(annotation.uniqueConstraints(), uniqueConstraints != null ? uniqueConstraints : new UniqueConstraint[]{}));
-		assertTrue(Arrays.equals(annotation.indexes(), indexes != null ? indexes : new Index[]{}));
+		JpaAssertions.assertTableAnnotation(c, name, catalog, schema, uniqueConstraints, indexes);
 	}
 	
 	/**
@@ -193,8 +274,7 @@ public final class Assert {
 	 * @param inheritanceType the inheritance type
 	 */
 	public static void assertInheritanceAnnotaion(Class c, InheritanceType inheritanceType) {
-		Inheritance inheritanceAnnotation = assertAnnotationPresentOnClass(Inheritance.class, c);
-		assertEquals(inheritanceType, inheritanceAnnotation.strategy());
+		JpaAssertions.assertInheritanceAnnotaion(c, inheritanceType);
 	}
 	//</editor-fold>
 
@@ -292,6 +372,32 @@ public final class Assert {
 		assertEquals(field, jsonPropertAnnotation.value());
 	}
 
+	/**
+	 * Asserts that a JSON payload matches the JsonProperty mappings of the specified DTO class 
+	 * tree: every property of the payload must be mapped by a field. The payload is streamed, 
+	 * so large golden files can be verified in constant memory. The stream is not closed.
+	 *
+	 * @param c the DTO class
+	 * @param json the JSON payload, either a DTO object or an array of DTO objects
+	 * @see JsonContractVerifier
+	 */
+	public static void assertJsonMatchesContract(Class c, InputStream json) {
+		List<String> mismatches;
+		try {
+			mismatches = JsonContractVerifier.forClass(c).verify(json);
+		} catch (IOException ioe) {
+			throw new AssertionError("Unable to read the JSON payload: " + ioe.getMessage(), ioe);
+		}
+
+		if (!mismatches.isEmpty()) {
+			StringBuilder message = new StringBuilder("Expected the JSON payload to match the contract of ").append(c.getName()).append(':');
+			for (String mismatch : mismatches) {
+				message.append("\n  - ").append(mismatch);
+			}
+			fail(message.toString());
+		}
+	}
+
 	/**
 	 * Asserts that the specified array of validation groups contains exactly the expected validation groups in the correct order.
 	 *
@@ -306,6 +412,30 @@ public final class Assert {
 		assertTrue(Arrays.equals(actualGroups, expectedGroups));
 	}
 
+	/**
+	 * Asserts that all the Bean Validation constraints declared on the fields of the classes 
+	 * of the specified package and of its sub-packages follow the specified rules. The constraint 
+	 * model of the package is cached and the rules are verified in parallel.
+	 *
+	 * <p><pre>
+	 * assertConstraintRules("com.lotaris.entities", ConstraintRule.declaresGroups(), ConstraintRule.sizeMatchesColumnLength());
+	 * </pre>
+	 *
+	 * @param packageName the name of the package
+	 * @param rules the rules to verify
+	 * @see ConstraintModel
+	 */
+	public static void assertConstraintRules(String packageName, ConstraintRule... rules) {
+		List<String> violations = ConstraintModel.of(packageName).check(rules);
+		if (!violations.isEmpty()) {
+			StringBuilder message = new StringBuilder("Expected the constraints of package ").append(packageName).append(" to follow the rules:");
+			for (String violation : violations) {
+				message.append("\n  - ").append(violation);
+			}
+			fail(message.toString());
+		}
+	}
+
 	/**
 	 * Asserts that the specified field on a class is annotated with the Column annotation, 
 	 * with the specified parameters.
@@ -334,19 +464,7 @@ public final class Assert {
 	 * @param columnDefinition the columnDefinition of the column, by default ""
 	 */
 	public static void assertColumnAnnotation(Class c, String field, Boolean nullable, String name, Integer length, Boolean unique, String columnDefinition) {
-		Column annotation = assertAnnotationPresentOnField(Column.class, c, field);
-		assertEquals(nullable != null ? nullable : true, annotation.nullable());
-		assertEquals(name != null ? name : "", annotation.name());
-		assertEquals(length != null ? length : 255, annotation.length());
-		assertEquals(unique != null ? unique : false, annotation.unique());
-		assertEquals(columnDefinition != null ? columnDefinition : "", annotation.columnDefinition());
-		
-		// the following parameters should not be used and keep their default values
-		assertEquals(true, annotation.insertable());
-		assertEquals(0, annotation.precision());
-		assertEquals(0, annotation.scale());
-		assertEquals("", annotation.table());
-		assertEquals(true, annotation.updatable());
+		JpaAssertions.assertColumnAnnotation(c, field, nullable, name, length, unique, columnDefinition);
 	}
 
 	/**
@@ -358,8 +476,7 @@ public final class Assert {
 	 * @param enumType the enumeration type, by default EnumType.ORDINAL
 	 */
 	public static void assertEnumeratedAnnotation(Class c, String field, EnumType enumType) {
-		Enumerated annotation = assertAnnotationPresentOnField(Enumerated.class, c, field);
-		assertEquals(enumType != null ? enumType : EnumType.ORDINAL, annotation.value());
+		JpaAssertions.assertEnumeratedAnnotation(c, field, enumType);
 	}
 
 	/**
@@ -371,8 +488,7 @@ public final class Assert {
 	 * @param temporalType the temporal type
 	 */
 	public static void assertTemporalAnnotation(Class c, String field, TemporalType temporalType) {
-		Temporal annotation = assertAnnotationPresentOnField(Temporal.class, c, field);
-		assertEquals(temporalType, annotation.value());
+		JpaAssertions.assertTemporalAnnotation(c, field, temporalType);
 	}
 	
 	/**
@@ -385,9 +501,7 @@ public final class Assert {
 	 * @param fetchType the fetch type, by default EnumType.LAZY
 	 */
 	public static void assertElementCollectionAnnotation(Class c, String field, Class targetClass, FetchType fetchType) {
-		ElementCollection annotation = assertAnnotationPresentOnField(ElementCollection.class, c, field);
-		assertEquals(targetClass != null ? targetClass : void.class, annotation.targetClass());
-		assertEquals(fetchType != null ? fetchType : FetchType.LAZY, annotation.fetch());
+		JpaAssertions.assertElementCollectionAnnotation(c, field, targetClass, fetchType);
 	}
 	
 	/**
@@ -402,15 +516,7 @@ public final class Assert {
 	 * @param optional whether the association is optional, by default true
 	 */
 	public static void assertOneToOneAnnotation(Class c, String field, CascadeType[] cascadeTypes, FetchType fetchType, String mappedBy, Boolean optional) {
-		OneToOne annotation = assertAnnotationPresentOnField(OneToOne.class, c, field);
-		assertTrue(Arrays.equals(annotation.cascade(), cascadeTypes != null ? cascadeTypes : new CascadeType[]{}));
-		assertEquals(fetchType != null ? fetchType : FetchType.EAGER, annotation.fetch());
-		assertEquals(mappedBy != null ? mappedBy : "", annotation.mappedBy());
-		assertEquals(optional != null ? optional : true, annotation.optional());
-		
-		// the following parameters should not be used and keep their default values
-		assertEquals(false, annotation.orphanRemoval());
-		assertEquals(void.class, annotation.targetEntity());
+		JpaAssertions.assertOneToOneAnnotation(c, field, cascadeTypes, fetchType, mappedBy, optional);
 	}
 	
 	/**
@@ -424,14 +530,7 @@ public final class Assert {
 	 * @param mappedBy the field that owns the relationship
 	 */
 	public static void assertOneToManyAnnotation(Class c, String field, CascadeType[] cascadeTypes, FetchType fetchTypes, String mappedBy) {
-		OneToMany annotation = assertAnnotationPresentOnField(OneToMany.class, c, field);
-		assertTrue(Arrays.equals(annotation.cascade(), cascadeTypes));
-		assertEquals(fetchTypes, annotation.fetch());
-		assertEquals(mappedBy, annotation.mappedBy());
-
-		// the following parameters should not be used and keep their default values
-		assertEquals(false, annotation.orphanRemoval());
-		assertEquals(void.class, annotation.targetEntity());
+		JpaAssertions.assertOneToManyAnnotation(c, field, cascadeTypes, fetchTypes, mappedBy);
 	}
 	
 	/**
@@ -445,13 +544,7 @@ public final class Assert {
 	 * @param optional whether the association is optional
 	 */
 	public static void assertManyToOneAnnotation(Class c, String field, CascadeType[] cascadeTypes, FetchType fetchTypes, boolean optional) {
-		ManyToOne annotation = assertAnnotationPresentOnField(ManyToOne.class, c, field);
-		assertTrue(Arrays.equals(annotation.cascade(), cascadeTypes));
-		assertEquals(fetchTypes, annotation.fetch());
-		assertEquals(optional, annotation.optional());
-		
-		// the following parameters should not be used and keep their default values
-		assertEquals(void.class, annotation.targetEntity());
+		JpaAssertions.assertManyToOneAnnotation(c, field, cascadeTypes, fetchTypes, optional);
 	}
 	
 	/**
@@ -465,41 +558,7 @@ public final class Assert {
 	 * @param constraintColumnNames array of constraint names
 	 */
 	public static void assertCollectionTableAnnotation(Class c, String field, String name, String[] joinColumnNames, String[] constraintColumnNames) {
-		CollectionTable annotation = assertAnnotationPresentOnField(CollectionTable.class, c, field);
-		
-		assertEquals(annotation.joinColumns().length, joinColumnNames.length);
-		
-		for (int i = 0 ; i < joinColumnNames.length ; i++) {
-			assertEquals(joinColumnNames[i], annotation.joinColumns()[i].name());
-			
-			// Join column should never be null for a collection table
-			assertEquals("JoinColumn should not be nullable for a CollectionTable", false, annotation.joinColumns()[i].nullable());
-		}
-		
-		// There should be maximum one constraint for a collection table
-		assertTrue("Maximum one UniqueConstraint should exists for a CollectionTalble", 1 >= annotation.uniqueConstraints().length);
-		
-		// Test constraint column names only if a UniqueConstraint exists
-		if(annotation.uniqueConstraints().length == 1) {
-			// Constraints name size should match
-			assertEquals(constraintColumnNames.length, annotation.uniqueConstraints()[0].columnNames().length);
-
-			// Assert all constraints name
-			for (int i = 0; i < constraintColumnNames.length; i++) {
-				assertEquals(constraintColumnNames[i], annotation.uniqueConstraints()[0].columnNames()[i]);
-
-				// use default value for the constraint name
-				assertEquals("UniqueConstraint should use the default name", "", annotation.uniqueConstraints()[0].name());
-			}
-		}
-		
-		assertEquals(name, annotation.name());
-		
-		// the following parameters should not be used and keep their default values
-		assertEquals("", annotation.schema());
-		assertEquals("", annotation.catalog());
-		assertEquals(0, annotation.indexes().length);
-		
+		JpaAssertions.assertCollectionTableAnnotation(c, field, name, joinColumnNames, constraintColumnNames);
 	}
 	
 	/**
@@ -513,19 +572,7 @@ public final class Assert {
 	 * @param unique whether the column is a unique key, by default false
 	 */
 	public static void assertJoinColumnAnnotation(Class c, String field, Boolean nullable, String name,  Boolean unique) {
-		JoinColumn annotation = assertAnnotationPresentOnField(JoinColumn.class, c, field);
-		assertEquals(name != null ? name : "", annotation.name());
-		assertEquals(nullable != null ? nullable : true, annotation.nullable());
-		assertEquals(unique != null ? unique : false, annotation.unique());
-
-		// the following parameters should not be used and keep their default values
-		assertEquals("", annotation.columnDefinition());
-		// TODO:
-		// assertEquals(TODO, annotation.foreignKey());
-		assertEquals(true, annotation.insertable());
-		assertEquals("", annotation.referencedColumnName());
-		assertEquals("", annotation.table());
-		assertEquals(true, annotation.updatable());
+		JpaAssertions.assertJoinColumnAnnotation(c, field, nullable, name, unique);
 	}
 	
 	/**
@@ -534,13 +581,7 @@ public final class Assert {
 	 * @param c the class
 	 */
 	public static void assertIdAnnotations(Class c) {
-		assertNumberOfAnnotationsOnFieldEquals(2, c, "id");
-		
-		assertAnnotationPresentOnField(Id.class, c, "id");
-		
-		GeneratedValue annotation = assertAnnotationPresentOnField(GeneratedValue.class, c, "id");
-		assertEquals(GenerationType.IDENTITY, annotation.strategy());
-		assertEquals("", annotation.generator());
+		JpaAssertions.assertIdAnnotations(c);
 	}
 	
 	/**
@@ -573,18 +614,7 @@ public final class Assert {
 	 */
 	public static void assertMapKeyColumnAnnotation(Class c, String field, String name,  Boolean unique, Boolean nullable, Boolean insertable, Boolean updatable, 
 				String columnDefinition, String table, Integer length, Integer precision, Integer scale) {
-		
-		MapKeyColumn annotation = assertAnnotationPresentOnField(MapKeyColumn.class, c, field);
-		assertEquals(name != null ? name : "", annotation.name());
-		assertEquals(unique != null ? unique : false, annotation.unique());
-		assertEquals(nullable != null ? nullable : false, annotation.nullable());
-		assertEquals(insertable != null ? insertable : true, annotation.insertable());
-		assertEquals(updatable != null ? updatable : true, annotation.updatable());
-		assertEquals(columnDefinition != null ? columnDefinition : "", annotation.columnDefinition());
-		assertEquals(table != null ? table : "", annotation.table());
-		assertEquals(length != null ? length : 255, annotation.length());
-		assertEquals(precision != null ? precision : 0, annotation.precision());
-		assertEquals(scale != null ? scale : 0, annotation.scale());
+		JpaAssertions.assertMapKeyColumnAnnotation(c, field, name, unique, nullable, insertable, updatable, columnDefinition, table, length, precision, scale);
 	}
 	
 	/**
@@ -606,39 +636,304 @@ public final class Assert {
 	
 	/**
 	 * Asserts that the specified field is annotated with the AttributeOverrides annotation, 
-	 * with the specified parameters.
+	 * with the specified parameters. The AttributeOverride annotations must be declared 
+	 * in the same order as the expected details.
 	 * 
 	 * @param c the class
 	 * @param field the verified field
 	 * @param attributeOverrides the list of expected AttributeOverride annotations contained
 	 */
 	public static void assertAttributeOverridesAnnotation(Class c, String field, AttributeOverrideDetails[] attributeOverrides) {
-		AttributeOverrides annotation = assertAnnotationPresentOnField(AttributeOverrides.class, c, field);
-		assertEquals(attributeOverrides.length, annotation.value().length);
-		
-		for (int i = 0; i < annotation.value().length; i++) {
-			assertInnerAttributeOverrideAnnotation(annotation.value()[i], attributeOverrides[i]);
-		}
+		JpaAssertions.assertAttributeOverridesAnnotation(c, field, attributeOverrides);
+	}
+	
+	/**
+	 * Asserts that the specified field is annotated with the AttributeOverrides annotation, 
+	 * with the specified parameters. The AttributeOverride annotations are matched by name, 
+	 * regardless of their declaration order, and all the differences are reported at once.
+	 * 
+	 * @param c the class
+	 * @param field the verified field
+	 * @param attributeOverrides the expected AttributeOverride annotations contained, in any order
+	 */
+	public static void assertAttributeOverridesAnnotationIgnoringOrder(Class c, String field, AttributeOverrideDetails... attributeOverrides) {
+		JpaAssertions.assertAttributeOverridesAnnotationIgnoringOrder(c, field, attributeOverrides);
+	}
+	
+	/**
+	 * Asserts that the specified field is annotated with the AssociationOverrides annotation, 
+	 * with the specified parameters. The AssociationOverride annotations must be declared 
+	 * in the same order as the expected details.
+	 * 
+	 * @param c the class
+	 * @param field the verified field
+	 * @param associationOverrides the expected AssociationOverride annotations contained
+	 */
+	public static void assertAssociationOverridesAnnotation(Class c, String field, AssociationOverrideDetails... associationOverrides) {
+		JpaAssertions.assertAssociationOverridesAnnotation(c, field, associationOverrides);
 	}
 	
 	/**
-	 * Asserts that the specified AttributeOverride annotation contains the expected details. 
+	 * Asserts that the specified field is annotated with the AssociationOverrides annotation, 
+	 * with the specified parameters. The AssociationOverride annotations are matched by name, 
+	 * regardless of their declaration order, and all the differences are reported at once.
 	 * 
-	 * @param annotation the AttributeOverride annotation verified
-	 * @param expectedDetails the AttributeOverrideDetails object containing the expected details
-	 */
-	private static void assertInnerAttributeOverrideAnnotation(AttributeOverride annotation, AttributeOverrideDetails expectedDetails) {
-		assertEquals(expectedDetails.getName() != null ? expectedDetails.getName() : "", annotation.name());
-		assertEquals(expectedDetails.getColumnName() != null ? expectedDetails.getColumnName() : "", annotation.column().name());
-		assertEquals(expectedDetails.getColumnUnique() != null ? expectedDetails.getColumnUnique() : false, annotation.column().unique());
-		assertEquals(expectedDetails.getColumnNullable() != null ? expectedDetails.getColumnNullable() : true, annotation.column().nullable());
-		assertEquals(expectedDetails.getColumnInsertable() != null ? expectedDetails.getColumnInsertable() : true, annotation.column().insertable());
-		assertEquals(expectedDetails.getColumnUpdatable() != null ? expectedDetails.getColumnUpdatable() : true, annotation.column().updatable());
-		assertEquals(expectedDetails.getColumnDefinition() != null ? expectedDetails.getColumnDefinition() : "", annotation.column().columnDefinition());
-		assertEquals(expectedDetails.getColumnTable() != null ? expectedDetails.getColumnTable() : "", annotation.column().table());
-		assertEquals(expectedDetails.getColumnLength() != null ? expectedDetails.getColumnLength() : 255, annotation.column().length());
-		assertEquals(expectedDetails.getColumnPrecision() != null ? expectedDetails.getColumnPrecision() : 0, annotation.column().precision());
-		assertEquals(expectedDetails.getColumnScale() != null ? expectedDetails.getColumnScale() : 0, annotation.column().scale());
+	 * @param c the class
+	 * @param field the verified field
+	 * @param associationOverrides the expected AssociationOverride annotations contained, in any order
+	 */
+	public static void assertAssociationOverridesAnnotationIgnoringOrder(Class c, String field, AssociationOverrideDetails... associationOverrides) {
+		JpaAssertions.assertAssociationOverridesAnnotationIgnoringOrder(c, field, associationOverrides);
+	}
+	//</editor-fold>
+
+	//<editor-fold defaultstate="collapsed" desc="Assertions on sequences">
+	/**
+	 * Asserts that two lists contain equal elements in the same order. Unlike assertEquals, 
+	 * the failure does not contain the string representation of both lists but only the 
+	 * first differences, with the unchanged elements around them.
+	 *
+	 * @param expected the expected elements
+	 * @param actual the actual elements
+	 * @see Diff
+	 */
+	public static void assertSequenceEquals(List<?> expected, List<?> actual) {
+		assertSequenceEquals(null, expected, actual);
+	}
+
+	/**
+	 * Asserts that two lists contain equal elements in the same order. Unlike assertEquals, 
+	 * the failure does not contain the string representation of both lists but only the 
+	 * first differences, with the unchanged elements around them.
+	 *
+	 * @param message the identifying message for the assertion error
+	 * @param expected the expected elements
+	 * @param actual the actual elements
+	 * @see Diff
+	 */
+	public static void assertSequenceEquals(String message, List<?> expected, List<?> actual) {
+		if (expected == null || actual == null) {
+			assertNullity(message, expected, actual);
+		} else {
+			assertEmptyDiff(message, "elements", Diff.compare(expected, actual));
+		}
+	}
+
+	/**
+	 * Asserts that two texts are equal. Unlike assertEquals, the failure does not contain both 
+	 * texts but only the first different lines, with the unchanged lines around them.
+	 *
+	 * @param expected the expected text
+	 * @param actual the actual text
+	 * @see Diff
+	 */
+	public static void assertTextEquals(String expected, String actual) {
+		assertTextEquals(null, expected, actual);
+	}
+
+	/**
+	 * Asserts that two texts are equal. Unlike assertEquals, the failure does not contain both 
+	 * texts but only the first different lines, with the unchanged lines around them.
+	 *
+	 * @param message the identifying message for the assertion error
+	 * @param expected the expected text
+	 * @param actual the actual text
+	 * @see Diff
+	 */
+	public static void assertTextEquals(String message, String expected, String actual) {
+		if (expected == null || actual == null) {
+			assertNullity(message, expected, actual);
+		} else if (!expected.equals(actual)) {
+			assertEmptyDiff(message, "lines", Diff.compareLines(expected, actual));
+		}
+	}
+
+	private static void assertNullity(String message, Object expected, Object actual) {
+		if (expected != actual) {
+			fail((message != null ? message + " " : "") + (expected == null ? "Expected null but was not null" : "Expected not null but was null"));
+		}
+	}
+
+	private static void assertEmptyDiff(String message, String elements, Diff diff) {
+		if (!diff.isEmpty()) {
+			fail((message != null ? message + " " : "") + "Expected the " + elements + " to be equal but they differ (" 
+				+ diff.getExpectedSize() + " expected, " + diff.getActualSize() + " actual):\n" + diff);
+		}
+	}
+	//</editor-fold>
+
+	//<editor-fold defaultstate="collapsed" desc="Performance assertions">
+	/**
+	 * Default number of iterations run before measuring the latency of a call
+	 */
+	public static final int DEFAULT_WARMUP_ITERATIONS = 100;
+
+	/**
+	 * Default number of measured iterations when asserting the latency percentiles of a call
+	 */
+	public static final int DEFAULT_MEASUREMENT_ITERATIONS = 1000;
+
+	/**
+	 * Default number of iterations run before measuring the allocations of a call, enough for the
+	 * JIT compiler to compile it with its optimizing compiler, and thus with escape analysis
+	 */
+	public static final int DEFAULT_ALLOCATION_WARMUP_ITERATIONS = 20000;
+
+	/**
+	 * Number of times the allocations of a call are measured, the smallest measurement being kept
+	 */
+	private static final int ALLOCATION_MEASUREMENT_REPEATS = 5;
+
+	/**
+	 * Asserts that the specified code completes within the specified time. The code is run
+	 * exactly once, without any warmup.
+	 *
+	 * @param call the code to measure
+	 * @param timeout the maximum duration of the call
+	 * @param unit the unit of the timeout
+	 */
+	public static void assertCompletesWithin(Runnable call, long timeout, TimeUnit unit) {
+		assertCompletesWithin(call, timeout, unit, 0, 1);
+	}
+
+	/**
+	 * Asserts that each measured iteration of the specified code completes within the specified
+	 * time. The warmup iterations are run first and are not measured.
+	 *
+	 * @param call the code to measure
+	 * @param timeout the maximum duration of each measured iteration
+	 * @param unit the unit of the timeout
+	 * @param warmupIterations the number of iterations to run before measuring
+	 * @param measurementIterations the number of measured iterations
+	 */
+	public static void assertCompletesWithin(Runnable call, long timeout, TimeUnit unit, int warmupIterations, int measurementIterations) {
+		LatencyHistogram histogram = measureLatency(Executors.callable(call), warmupIterations, measurementIterations);
+		if (histogram.getMax() > unit.toNanos(timeout)) {
+			fail("Expected the call to complete within " + LatencyHistogram.format(unit.toNanos(timeout)) + " but the slowest iteration took " 
+				+ LatencyHistogram.format(histogram.getMax()) + " (" + histogram + ")");
+		}
+	}
+
+	/**
+	 * Asserts that the specified percentile of the latencies of the specified code is below the
+	 * specified time. The code is run for {@value #DEFAULT_WARMUP_ITERATIONS} warmup iterations
+	 * and then measured during {@value #DEFAULT_MEASUREMENT_ITERATIONS} iterations.
+	 *
+	 * <p><pre>
+	 * assertPercentileBelow(serializeCall, 99, 200, TimeUnit.MICROSECONDS);
+	 * </pre>
+	 *
+	 * @param call the code to measure
+	 * @param percentile the percentile to check, between 0 and 100 (e.g. 99 for the p99)
+	 * @param limit the maximum latency of the percentile
+	 * @param unit the unit of the limit
+	 */
+	public static void assertPercentileBelow(Callable<?> call, double percentile, long limit, TimeUnit unit) {
+		assertPercentileBelow(call, percentile, limit, unit, DEFAULT_WARMUP_ITERATIONS, DEFAULT_MEASUREMENT_ITERATIONS);
+	}
+
+	/**
+	 * Asserts that the specified percentile of the latencies of the specified code is below the
+	 * specified time. The warmup iterations are run first and are not measured.
+	 *
+	 * @param call the code to measure
+	 * @param percentile the percentile to check, between 0 and 100 (e.g. 99 for the p99)
+	 * @param limit the maximum latency of the percentile
+	 * @param unit the unit of the limit
+	 * @param warmupIterations the number of iterations to run before measuring
+	 * @param measurementIterations the number of measured iterations
+	 */
+	public static void assertPercentileBelow(Callable<?> call, double percentile, long limit, TimeUnit unit, int warmupIterations, int measurementIterations) {
+		LatencyHistogram histogram = measureLatency(call, warmupIterations, measurementIterations);
+		long actual = histogram.getPercentile(percentile);
+		if (actual > unit.toNanos(limit)) {
+			fail("Expected the p" + percentile + " latency to be below " + LatencyHistogram.format(unit.toNanos(limit)) + " but was " 
+				+ LatencyHistogram.format(actual) + " (" + histogram + ")");
+		}
+	}
+
+	/**
+	 * Asserts that the specified code allocates at most the specified number of bytes on the heap.
+	 * The code is run for {@value #DEFAULT_ALLOCATION_WARMUP_ITERATIONS} warmup iterations before
+	 * being measured, which usually lets the JIT compiler compile it with escape analysis and
+	 * remove the allocations which do not escape the call.
+	 *
+	 * <p>
+	 * The assertion is skipped if the JVM cannot measure the allocations per thread.
+	 *
+	 * @param bytes the maximum number of allocated bytes
+	 * @param call the code to measure
+	 */
+	public static void assertAllocatesAtMost(long bytes, Runnable call) {
+		assertAllocatesAtMost(bytes, DEFAULT_ALLOCATION_WARMUP_ITERATIONS, call);
+	}
+
+	/**
+	 * Asserts that the specified code allocates at most the specified number of bytes on the heap,
+	 * after the specified number of warmup iterations. Code which is slow to compile, or runs on a
+	 * JVM with a higher compilation threshold, may need more warmup for its allocations to be
+	 * removed by escape analysis.
+	 *
+	 * <p>
+	 * The assertion is skipped if the JVM cannot measure the allocations per thread.
+	 *
+	 * @param bytes the maximum number of allocated bytes
+	 * @param warmupIterations the number of iterations run before measuring
+	 * @param call the code to measure
+	 */
+	public static void assertAllocatesAtMost(long bytes, int warmupIterations, Runnable call) {
+		long allocated = measureAllocatedBytes(call, warmupIterations, 1);
+		if (allocated > bytes) {
+			fail("Expected the call to allocate at most " + bytes + " bytes but it allocated " + allocated + " bytes");
+		}
+	}
+
+	/**
+	 * Asserts that the specified code allocates on average at most the specified number of bytes
+	 * on the heap per iteration. Measuring many iterations together smooths out the allocations
+	 * which do not happen on every call, like the growth of an internal buffer. The code is run for
+	 * {@value #DEFAULT_ALLOCATION_WARMUP_ITERATIONS} warmup iterations before being measured.
+	 *
+	 * <p>
+	 * The assertion is skipped if the JVM cannot measure the allocations per thread.
+	 *
+	 * @param bytes the maximum average number of allocated bytes per iteration
+	 * @param iterations the number of measured iterations
+	 * @param call the code to measure
+	 */
+	public static void assertAllocatesAtMostPerIteration(long bytes, int iterations, Runnable call) {
+		long allocated = measureAllocatedBytes(call, DEFAULT_ALLOCATION_WARMUP_ITERATIONS, iterations);
+		if (allocated > bytes * iterations) {
+			fail("Expected the call to allocate at most " + bytes + " bytes per iteration but it allocated " 
+				+ String.format("%.1f", (double) allocated / iterations) + " bytes per iteration over " + iterations + " iterations");
+		}
+	}
+
+	/**
+	 * Measures the allocations of the specified code, skipping the test if the JVM does not support it.
+	 */
+	private static long measureAllocatedBytes(Runnable call, int warmupIterations, int iterations) {
+		assumeTrue("The JVM does not support the measurement of the allocations per thread", AllocationMeter.isSupported());
+		try {
+			return AllocationMeter.measureAllocatedBytes(Executors.callable(call), warmupIterations, iterations, ALLOCATION_MEASUREMENT_REPEATS);
+		} catch (RuntimeException re) {
+			throw re;
+		} catch (Exception e) {
+			throw new AssertionError("The measured call has thrown an exception: " + e, e);
+		}
+	}
+
+	/**
+	 * Measures the latency of the specified code, reporting its exceptions as assertion errors.
+	 */
+	private static LatencyHistogram measureLatency(Callable<?> call, int warmupIterations, int measurementIterations) {
+		try {
+			return Measurements.measureLatency(call, warmupIterations, measurementIterations);
+		} catch (RuntimeException re) {
+			throw re;
+		} catch (Exception e) {
+			throw new AssertionError("The measured call has thrown an exception: " + e, e);
+		}
 	}
 	//</editor-fold>
 	
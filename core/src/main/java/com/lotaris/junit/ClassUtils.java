@@ -0,0 +1,416 @@
+package com.lotaris.junit;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * Class utilities for testing.
+ *
+ * @author Simon Oulevay <simon.oulevay@lotaris.com>
+ */
+public final class ClassUtils {
+
+	private static final String CLASS_SUFFIX = ".class";
+
+	/**
+	 * Field accessors by class and field name, released with the classes
+	 */
+	private static final ClassValue<ConcurrentMap<String, FieldAccessor<?, ?>>> FIELD_ACCESSORS = new ClassValue<ConcurrentMap<String, FieldAccessor<?, ?>>>() {
+		@Override
+		protected ConcurrentMap<String, FieldAccessor<?, ?>> computeValue(Class<?> type) {
+			return new ConcurrentHashMap<>();
+		}
+	};
+
+	/**
+	 * Returns the specified field of the specified class.
+	 *
+	 * @param c the class to take the field from
+	 * @param field the name of the field
+	 * @return a field, or null if the class has no such field
+	 * @throws NullPointerException if the class is null
+	 */
+	public static Field getDeclaredField(Class c, String field) {
+		try {
+			return c.getDeclaredField(field);
+		} catch (NoSuchFieldException nsfe) {
+			return null;
+		}
+	}
+
+	/**
+	 * Returns the specific annotation on the specified class.
+	 *
+	 * @param <T> the annotation type
+	 * @param c the class to take the annotation from
+	 * @param annotationClass the annotation class
+	 * @return the annotation, or null if the class has no such annotation
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T extends Annotation> T getAnnotation(Class c, Class<T> annotationClass) {
+		return (T) c.getAnnotation(annotationClass);
+	}
+
+	/**
+	 * Returns the specified annotation on the specified field of a class.
+	 *
+	 * @param <T> the annotation type
+	 * @param c the class to take the annotation from
+	 * @param field the name of the field
+	 * @param annotationClass the annotation class
+	 * @return the annotation, or null if the class has no such field or the field has no such annotation
+	 */
+	public static <T extends Annotation> T getAnnotation(Class c, String field, Class<T> annotationClass) {
+		final Field f = getDeclaredField(c, field);
+		return f != null ? f.getAnnotation(annotationClass) : null;
+	}
+
+	/**
+	 * Returns a cached accessor of the specified field of a class or of one of its superclasses.
+	 * The accessor is built once per class and field, so the field is not looked up nor made
+	 * accessible again on each access.
+	 *
+	 * <p><pre>
+	 * FieldAccessor&lt;User, Long&gt; id = ClassUtils.getFieldAccessor(User.class, "id", Long.class);
+	 * id.set(user, 42L);
+	 * </pre>
+	 *
+	 * @param <T> the type of the objects holding the field
+	 * @param <V> the type of the field values
+	 * @param c the class declaring the field, or a subclass of it
+	 * @param field the name of the field
+	 * @param valueType the type of the field or one of its supertypes, or the wrapper type for a primitive field
+	 * @return the accessor, or null if the class and its superclasses have no such field
+	 * @throws IllegalArgumentException if the values of the field are not of the value type
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T, V> FieldAccessor<T, V> getFieldAccessor(Class<T> c, String field, Class<V> valueType) {
+		final ConcurrentMap<String, FieldAccessor<?, ?>> accessors = FIELD_ACCESSORS.get(c);
+
+		FieldAccessor<?, ?> accessor = accessors.get(field);
+		if (accessor == null) {
+			Field f = null;
+			for (Class<?> current = c; f == null && current != null; current = current.getSuperclass()) {
+				f = getDeclaredField(current, field);
+			}
+			if (f == null) {
+				return null;
+			}
+
+			accessor = new FieldAccessor<>(f);
+			final FieldAccessor<?, ?> existing = accessors.putIfAbsent(field, accessor);
+			if (existing != null) {
+				accessor = existing;
+			}
+		}
+
+		if (!wrap(valueType).isAssignableFrom(wrap(accessor.getType()))) {
+			throw new IllegalArgumentException("The field " + field + " of " + c.getName() + " is of type " + accessor.getType().getName() + ", not " + valueType.getName());
+		}
+
+		return (FieldAccessor<T, V>) accessor;
+	}
+
+	/**
+	 * Typed accessor of a field, made accessible once. Accessors are obtained through
+	 * {@link ClassUtils#getFieldAccessor(java.lang.Class, java.lang.String, java.lang.Class)}.
+	 *
+	 * <p>
+	 * The accessor delegates to its {@link Field}, which the JIT compiles as well as a field
+	 * kept by the caller, unlike method handles held in instance fields which it cannot treat
+	 * as constants. The primitive getters and setters avoid the boxing of the values, with the
+	 * widening conversions of {@link Field#getLong(java.lang.Object)} and the like.
+	 *
+	 * @param <T> the type of the objects holding the field
+	 * @param <V> the type of the field values
+	 */
+	public static final class FieldAccessor<T, V> {
+
+		private final Field field;
+
+		private FieldAccessor(Field field) {
+			field.setAccessible(true);
+			this.field = field;
+		}
+
+		/**
+		 * @param target the object holding the field, ignored for a static field
+		 * @return the value of the field
+		 */
+		@SuppressWarnings("unchecked")
+		public V get(T target) {
+			try {
+				return (V) field.get(target);
+			} catch (IllegalAccessException iae) {
+				throw illegalAccess(iae);
+			}
+		}
+
+		/**
+		 * @param target the object holding the field, ignored for a static field
+		 * @param value the new value of the field
+		 * @throws UnsupportedOperationException if the field is static and final
+		 */
+		public void set(T target, V value) {
+			try {
+				field.set(target, value);
+			} catch (IllegalAccessException iae) {
+				throw illegalAccess(iae);
+			}
+		}
+
+		//<editor-fold defaultstate="collapsed" desc="Primitive getters & setters">
+		public int getInt(T target) {
+			try {
+				return field.getInt(target);
+			} catch (IllegalAccessException iae) {
+				throw illegalAccess(iae);
+			}
+		}
+
+		public void setInt(T target, int value) {
+			try {
+				field.setInt(target, value);
+			} catch (IllegalAccessException iae) {
+				throw illegalAccess(iae);
+			}
+		}
+
+		public long getLong(T target) {
+			try {
+				return field.getLong(target);
+			} catch (IllegalAccessException iae) {
+				throw illegalAccess(iae);
+			}
+		}
+
+		public void setLong(T target, long value) {
+			try {
+				field.setLong(target, value);
+			} catch (IllegalAccessException iae) {
+				throw illegalAccess(iae);
+			}
+		}
+
+		public double getDouble(T target) {
+			try {
+				return field.getDouble(target);
+			} catch (IllegalAccessException iae) {
+				throw illegalAccess(iae);
+			}
+		}
+
+		public void setDouble(T target, double value) {
+			try {
+				field.setDouble(target, value);
+			} catch (IllegalAccessException iae) {
+				throw illegalAccess(iae);
+			}
+		}
+
+		public boolean getBoolean(T target) {
+			try {
+				return field.getBoolean(target);
+			} catch (IllegalAccessException iae) {
+				throw illegalAccess(iae);
+			}
+		}
+
+		public void setBoolean(T target, boolean value) {
+			try {
+				field.setBoolean(target, value);
+			} catch (IllegalAccessException iae) {
+				throw illegalAccess(iae);
+			}
+		}
+
+		public float getFloat(T target) {
+			try {
+				return field.getFloat(target);
+			} catch (IllegalAccessException iae) {
+				throw illegalAccess(iae);
+			}
+		}
+
+		public void setFloat(T target, float value) {
+			try {
+				field.setFloat(target, value);
+			} catch (IllegalAccessException iae) {
+				throw illegalAccess(iae);
+			}
+		}
+
+		public short getShort(T target) {
+			try {
+				return field.getShort(target);
+			} catch (IllegalAccessException iae) {
+				throw illegalAccess(iae);
+			}
+		}
+
+		public void setShort(T target, short value) {
+			try {
+				field.setShort(target, value);
+			} catch (IllegalAccessException iae) {
+				throw illegalAccess(iae);
+			}
+		}
+
+		public byte getByte(T target) {
+			try {
+				return field.getByte(target);
+			} catch (IllegalAccessException iae) {
+				throw illegalAccess(iae);
+			}
+		}
+
+		public void setByte(T target, byte value) {
+			try {
+				field.setByte(target, value);
+			} catch (IllegalAccessException iae) {
+				throw illegalAccess(iae);
+			}
+		}
+
+		public char getChar(T target) {
+			try {
+				return field.getChar(target);
+			} catch (IllegalAccessException iae) {
+				throw illegalAccess(iae);
+			}
+		}
+
+		public void setChar(T target, char value) {
+			try {
+				field.setChar(target, value);
+			} catch (IllegalAccessException iae) {
+				throw illegalAccess(iae);
+			}
+		}
+		//</editor-fold>
+
+		public Field getField() {
+			return field;
+		}
+
+		public Class<?> getType() {
+			return field.getType();
+		}
+
+		private RuntimeException illegalAccess(IllegalAccessException iae) {
+			if (Modifier.isStatic(field.getModifiers()) && Modifier.isFinal(field.getModifiers())) {
+				return new UnsupportedOperationException("The static final field " + field + " cannot be set", iae);
+			}
+			return new IllegalStateException("Unable to access the field " + field, iae);
+		}
+	}
+
+	private static Class<?> wrap(Class<?> type) {
+		if (!type.isPrimitive()) {
+			return type;
+		} else if (type == int.class) {
+			return Integer.class;
+		} else if (type == long.class) {
+			return Long.class;
+		} else if (type == double.class) {
+			return Double.class;
+		} else if (type == boolean.class) {
+			return Boolean.class;
+		} else if (type == float.class) {
+			return Float.class;
+		} else if (type == short.class) {
+			return Short.class;
+		} else if (type == byte.class) {
+			return Byte.class;
+		} else if (type == char.class) {
+			return Character.class;
+		}
+		return Void.class;
+	}
+
+	/**
+	 * Returns the classes of the specified package and of its sub-packages, found in the directories
+	 * and jars of the classpath of the context class loader. The classes are loaded without being
+	 * initialized and are sorted by name.
+	 *
+	 * @param packageName the name of the package (e.g. com.lotaris.entities)
+	 * @return the classes of the package
+	 * @throws IllegalStateException if the classpath cannot be read or a class cannot be loaded
+	 */
+	public static List<Class> getClasses(String packageName) {
+		final ClassLoader loader = Thread.currentThread().getContextClassLoader() != null
+			? Thread.currentThread().getContextClassLoader() : ClassUtils.class.getClassLoader();
+		final String path = packageName.replace('.', '/');
+		final SortedSet<String> classNames = new TreeSet<>();
+
+		try {
+			final Enumeration<URL> resources = loader.getResources(path);
+			while (resources.hasMoreElements()) {
+				final URL resource = resources.nextElement();
+				if ("file".equals(resource.getProtocol())) {
+					addClassNames(new File(resource.toURI()), packageName, classNames);
+				} else if ("jar".equals(resource.getProtocol())) {
+					final JarURLConnection connection = (JarURLConnection) resource.openConnection();
+					connection.setUseCaches(false);
+					try (JarFile jar = connection.getJarFile()) {
+						final Enumeration<JarEntry> entries = jar.entries();
+						while (entries.hasMoreElements()) {
+							final String name = entries.nextElement().getName();
+							if (name.startsWith(path + "/") && isClassFile(name)) {
+								classNames.add(name.substring(0, name.length() - CLASS_SUFFIX.length()).replace('/', '.'));
+							}
+						}
+					}
+				}
+			}
+
+			final List<Class> classes = new ArrayList<>(classNames.size());
+			for (String className : classNames) {
+				classes.add(Class.forName(className, false, loader));
+			}
+			return classes;
+		} catch (IOException | URISyntaxException | ClassNotFoundException e) {
+			throw new IllegalStateException("Unable to list the classes of the package " + packageName, e);
+		}
+	}
+
+	private static void addClassNames(File directory, String packageName, Set<String> classNames) {
+		final File[] files = directory.listFiles();
+		if (files == null) {
+			return;
+		}
+
+		for (File file : files) {
+			if (file.isDirectory()) {
+				addClassNames(file, packageName + "." + file.getName(), classNames);
+			} else if (isClassFile(file.getName())) {
+				classNames.add(packageName + "." + file.getName().substring(0, file.getName().length() - CLASS_SUFFIX.length()));
+			}
+		}
+	}
+
+	private static boolean isClassFile(String name) {
+		return name.endsWith(CLASS_SUFFIX) && !name.endsWith("package-info" + CLASS_SUFFIX) && !name.endsWith("module-info" + CLASS_SUFFIX);
+	}
+
+	//<editor-fold defaultstate="collapsed" desc="Hidden Constructor">
+	public ClassUtils() {
+	}
+	//</editor-fold>
+}
@@ -0,0 +1,317 @@
+package com.lotaris.junit;
+
+import com.lotaris.junit.helpers.AssociationOverrideDetails;
+import com.lotaris.junit.helpers.AttributeOverrideDetails;
+import com.lotaris.junit.helpers.OverrideDetails;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.persistence.AssociationOverride;
+import javax.persistence.AssociationOverrides;
+import javax.persistence.AttributeOverride;
+import javax.persistence.AttributeOverrides;
+import javax.persistence.CascadeType;
+import javax.persistence.CollectionTable;
+import javax.persistence.Column;
+import javax.persistence.ElementCollection;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.FetchType;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Inheritance;
+import javax.persistence.InheritanceType;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.MapKeyColumn;
+import javax.persistence.OneToMany;
+import javax.persistence.OneToOne;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+import javax.persistence.UniqueConstraint;
+
+import static com.lotaris.junit.Assert.assertAnnotationPresentOnClass;
+import static com.lotaris.junit.Assert.assertAnnotationPresentOnField;
+import static com.lotaris.junit.Assert.assertNumberOfAnnotationsOnFieldEquals;
+import static org.junit.Assert.*;
+
+/**
+ * Implementation of the JPA assertions of {@link Assert}.
+ *
+ * <p>
+ * The assertions only delegate to this class, which is loaded on the first JPA assertion. 
+ * Tests which do not use them therefore never load the javax.persistence classes, which 
+ * do not even need to be on their classpath.
+ *
+ * @author Simon Oulevay <simon.oulevay@lotaris.com>
+ */
+final class JpaAssertions {
+
+	static UniqueConstraint[] assertNumberOfUniqueConstraintsOnClass(int n, Class c) {
+		Table tableAnnotation = assertAnnotationPresentOnClass(Table.class, c);
+		UniqueConstraint[] constraints = tableAnnotation.uniqueConstraints();
+		assertEquals("Expected class " + c.getName() + " to have exactly " + n + " unique constraints.", n, constraints.length);
+		return constraints;
+	}
+
+	static void assertUniqueConstraintColumnNames(UniqueConstraint uniqueConstraint, String... expectedNames) {
+		assertTrue(Arrays.equals(uniqueConstraint.columnNames(), expectedNames));
+	}
+
+	static void assertTableAnnotation(Class c, String name, String catalog, String schema, UniqueConstraint[] uniqueConstraints, Index[] indexes) {
+		Table annotation = assertAnnotationPresentOnClass("Annotation was not found on class", Table.class, c);
+		assertEquals(name != null ? name : "", annotation.name());
+		assertEquals(catalog != null ? catalog : "", annotation.catalog());
+		assertEquals(schema != null ? schema : "", annotation.schema());
+		assertTrue(Arrays.equals(annotation.uniqueConstraints(), uniqueConstraints != null ? uniqueConstraints : new UniqueConstraint[]{}));
+		assertTrue(Arrays.equals(annotation.indexes(), indexes != null ? indexes : new Index[]{}));
+	}
+
+	static void assertInheritanceAnnotaion(Class c, InheritanceType inheritanceType) {
+		Inheritance inheritanceAnnotation = assertAnnotationPresentOnClass(Inheritance.class, c);
+		assertEquals(inheritanceType, inheritanceAnnotation.strategy());
+	}
+
+	static void assertColumnAnnotation(Class c, String field, Boolean nullable, String name, Integer length, Boolean unique, String columnDefinition) {
+		Column annotation = assertAnnotationPresentOnField(Column.class, c, field);
+		assertEquals(nullable != null ? nullable : true, annotation.nullable());
+		assertEquals(name != null ? name : "", annotation.name());
+		assertEquals(length != null ? length : 255, annotation.length());
+		assertEquals(unique != null ? unique : false, annotation.unique());
+		assertEquals(columnDefinition != null ? columnDefinition : "", annotation.columnDefinition());
+		
+		// the following parameters should not be used and keep their default values
+		assertEquals(true, annotation.insertable());
+		assertEquals(0, annotation.precision());
+		assertEquals(0, annotation.scale());
+		assertEquals("", annotation.table());
+		assertEquals(true, annotation.updatable());
+	}
+
+	static void assertEnumeratedAnnotation(Class c, String field, EnumType enumType) {
+		Enumerated annotation = assertAnnotationPresentOnField(Enumerated.class, c, field);
+		assertEquals(enumType != null ? enumType : EnumType.ORDINAL, annotation.value());
+	}
+
+	static void assertTemporalAnnotation(Class c, String field, TemporalType temporalType) {
+		Temporal annotation = assertAnnotationPresentOnField(Temporal.class, c, field);
+		assertEquals(temporalType, annotation.value());
+	}
+
+	static void assertElementCollectionAnnotation(Class c, String field, Class targetClass, FetchType fetchType) {
+		ElementCollection annotation = assertAnnotationPresentOnField(ElementCollection.class, c, field);
+		assertEquals(targetClass != null ? targetClass : void.class, annotation.targetClass());
+		assertEquals(fetchType != null ? fetchType : FetchType.LAZY, annotation.fetch());
+	}
+
+	static void assertOneToOneAnnotation(Class c, String field, CascadeType[] cascadeTypes, FetchType fetchType, String mappedBy, Boolean optional) {
+		OneToOne annotation = assertAnnotationPresentOnField(OneToOne.class, c, field);
+		assertTrue(Arrays.equals(annotation.cascade(), cascadeTypes != null ? cascadeTypes : new CascadeType[]{}));
+		assertEquals(fetchType != null ? fetchType : FetchType.EAGER, annotation.fetch());
+		assertEquals(mappedBy != null ? mappedBy : "", annotation.mappedBy());
+		assertEquals(optional != null ? optional : true, annotation.optional());
+		
+		// the following parameters should not be used and keep their default values
+		assertEquals(false, annotation.orphanRemoval());
+		assertEquals(void.class, annotation.targetEntity());
+	}
+
+	static void assertOneToManyAnnotation(Class c, String field, CascadeType[] cascadeTypes, FetchType fetchTypes, String mappedBy) {
+		OneToMany annotation = assertAnnotationPresentOnField(OneToMany.class, c, field);
+		assertTrue(Arrays.equals(annotation.cascade(), cascadeTypes));
+		assertEquals(fetchTypes, annotation.fetch());
+		assertEquals(mappedBy, annotation.mappedBy());
+
+		// the following parameters should not be used and keep their default values
+		assertEquals(false, annotation.orphanRemoval());
+		assertEquals(void.class, annotation.targetEntity());
+	}
+
+	static void assertManyToOneAnnotation(Class c, String field, CascadeType[] cascadeTypes, FetchType fetchTypes, boolean optional) {
+		ManyToOne annotation = assertAnnotationPresentOnField(ManyToOne.class, c, field);
+		assertTrue(Arrays.equals(annotation.cascade(), cascadeTypes));
+		assertEquals(fetchTypes, annotation.fetch());
+		assertEquals(optional, annotation.optional());
+		
+		// the following parameters should not be used and keep their default values
+		assertEquals(void.class, annotation.targetEntity());
+	}
+
+	static void assertCollectionTableAnnotation(Class c, String field, String name, String[] joinColumnNames, String[] constraintColumnNames) {
+		CollectionTable annotation = assertAnnotationPresentOnField(CollectionTable.class, c, field);
+		
+		assertEquals(annotation.joinColumns().length, joinColumnNames.length);
+		
+		for (int i = 0 ; i < joinColumnNames.length ; i++) {
+			assertEquals(joinColumnNames[i], annotation.joinColumns()[i].name());
+			
+			// Join column should never be null for a collection table
+			assertEquals("JoinColumn should not be nullable for a CollectionTable", false, annotation.joinColumns()[i].nullable());
+		}
+		
+		// There should be maximum one constraint for a collection table
+		assertTrue("Maximum one UniqueConstraint should exists for a CollectionTalble", 1 >= annotation.uniqueConstraints().length);
+		
+		// Test constraint column names only if a UniqueConstraint exists
+		if(annotation.uniqueConstraints().length == 1) {
+			// Constraints name size should match
+			assertEquals(constraintColumnNames.length, annotation.uniqueConstraints()[0].columnNames().length);
+
+			// Assert all constraints name
+			for (int i = 0; i < constraintColumnNames.length; i++) {
+				assertEquals(constraintColumnNames[i], annotation.uniqueConstraints()[0].columnNames()[i]);
+
+				// use default value for the constraint name
+				assertEquals("UniqueConstraint should use the default name", "", annotation.uniqueConstraints()[0].name());
+			}
+		}
+		
+		assertEquals(name, annotation.name());
+		
+		// the following parameters should not be used and keep their default values
+		assertEquals("", annotation.schema());
+		assertEquals("", annotation.catalog());
+		assertEquals(0, annotation.indexes().length);
+		
+	}
+
+	static void assertJoinColumnAnnotation(Class c, String field, Boolean nullable, String name, Boolean unique) {
+		JoinColumn annotation = assertAnnotationPresentOnField(JoinColumn.class, c, field);
+		assertEquals(name != null ? name : "", annotation.name());
+		assertEquals(nullable != null ? nullable : true, annotation.nullable());
+		assertEquals(unique != null ? unique : false, annotation.unique());
+
+		// the following parameters should not be used and keep their default values
+		assertEquals("", annotation.columnDefinition());
+		// TODO:
+		// assertEquals(TODO, annotation.foreignKey());
+		assertEquals(true, annotation.insertable());
+		assertEquals("", annotation.referencedColumnName());
+		assertEquals("", annotation.table());
+		assertEquals(true, annotation.updatable());
+	}
+
+	static void assertIdAnnotations(Class c) {
+		assertNumberOfAnnotationsOnFieldEquals(2, c, "id");
+		
+		assertAnnotationPresentOnField(Id.class, c, "id");
+		
+		GeneratedValue annotation = assertAnnotationPresentOnField(GeneratedValue.class, c, "id");
+		assertEquals(GenerationType.IDENTITY, annotation.strategy());
+		assertEquals("", annotation.generator());
+	}
+
+	static void assertMapKeyColumnAnnotation(Class c, String field, String name, Boolean unique, Boolean nullable, Boolean insertable, Boolean updatable, String columnDefinition, String table, Integer length, Integer precision, Integer scale) {
+		
+		MapKeyColumn annotation = assertAnnotationPresentOnField(MapKeyColumn.class, c, field);
+		assertEquals(name != null ? name : "", annotation.name());
+		assertEquals(unique != null ? unique : false, annotation.unique());
+		assertEquals(nullable != null ? nullable : false, annotation.nullable());
+		assertEquals(insertable != null ? insertable : true, annotation.insertable());
+		assertEquals(updatable != null ? updatable : true, annotation.updatable());
+		assertEquals(columnDefinition != null ? columnDefinition : "", annotation.columnDefinition());
+		assertEquals(table != null ? table : "", annotation.table());
+		assertEquals(length != null ? length : 255, annotation.length());
+		assertEquals(precision != null ? precision : 0, annotation.precision());
+		assertEquals(scale != null ? scale : 0, annotation.scale());
+	}
+
+	static void assertAttributeOverridesAnnotation(Class c, String field, AttributeOverrideDetails[] attributeOverrides) {
+		AttributeOverrides annotation = assertAnnotationPresentOnField(AttributeOverrides.class, c, field);
+		assertEquals(attributeOverrides.length, annotation.value().length);
+		
+		for (int i = 0; i < annotation.value().length; i++) {
+			assertEquals(attributeOverrides[i], AttributeOverrideDetails.of(annotation.value()[i]));
+		}
+	}
+
+	static void assertAttributeOverridesAnnotationIgnoringOrder(Class c, String field, AttributeOverrideDetails... attributeOverrides) {
+		AttributeOverrides annotation = assertAnnotationPresentOnField(AttributeOverrides.class, c, field);
+		
+		List<AttributeOverrideDetails> actual = new ArrayList<>(annotation.value().length);
+		for (AttributeOverride attributeOverride : annotation.value()) {
+			actual.add(AttributeOverrideDetails.of(attributeOverride));
+		}
+		
+		assertOverridesIgnoringOrder("AttributeOverrides on field " + field + " of class " + c.getName(), Arrays.asList(attributeOverrides), actual);
+	}
+
+	static void assertAssociationOverridesAnnotation(Class c, String field, AssociationOverrideDetails... associationOverrides) {
+		AssociationOverrides annotation = assertAnnotationPresentOnField(AssociationOverrides.class, c, field);
+		assertEquals(associationOverrides.length, annotation.value().length);
+		
+		for (int i = 0; i < annotation.value().length; i++) {
+			assertEquals(associationOverrides[i], AssociationOverrideDetails.of(annotation.value()[i]));
+		}
+	}
+
+	static void assertAssociationOverridesAnnotationIgnoringOrder(Class c, String field, AssociationOverrideDetails... associationOverrides) {
+		AssociationOverrides annotation = assertAnnotationPresentOnField(AssociationOverrides.class, c, field);
+		
+		List<AssociationOverrideDetails> actual = new ArrayList<>(annotation.value().length);
+		for (AssociationOverride associationOverride : annotation.value()) {
+			actual.add(AssociationOverrideDetails.of(associationOverride));
+		}
+		
+		assertOverridesIgnoringOrder("AssociationOverrides on field " + field + " of class " + c.getName(), Arrays.asList(associationOverrides), actual);
+	}
+
+	/**
+	 * Asserts that the actual overrides match the expected ones by indexing them by name. Missing, 
+	 * unexpected, duplicated and different overrides are all collected before failing.
+	 * 
+	 * @param <T> the type of override details
+	 * @param description the description of the verified annotation, used in the failure message
+	 * @param expected the expected overrides
+	 * @param actual the overrides read from the annotation
+	 */
+	private static <T extends OverrideDetails> void assertOverridesIgnoringOrder(String description, List<T> expected, List<T> actual) {
+		Map<String, T> expectedByName = new HashMap<>(expected.size() * 2);
+		List<String> mismatches = new ArrayList<>();
+		
+		for (T details : expected) {
+			if (expectedByName.put(details.getName(), details) != null) {
+				mismatches.add("duplicated expected override " + details.getName());
+			}
+		}
+		
+		Set<String> seen = new HashSet<>(actual.size() * 2);
+		for (T details : actual) {
+			if (!seen.add(details.getName())) {
+				mismatches.add("duplicated override " + details.getName());
+				continue;
+			}
+			
+			T expectedDetails = expectedByName.remove(details.getName());
+			if (expectedDetails == null) {
+				mismatches.add("unexpected " + details);
+			} else if (!expectedDetails.equals(details)) {
+				mismatches.add("expected " + expectedDetails + " but was " + details);
+			}
+		}
+		
+		for (T details : expectedByName.values()) {
+			mismatches.add("missing " + details);
+		}
+		
+		if (!mismatches.isEmpty()) {
+			StringBuilder message = new StringBuilder(description).append(" do not match the expected ones:");
+			for (String mismatch : mismatches) {
+				message.append("\n  - ").append(mismatch);
+			}
+			fail(message.toString());
+		}
+	}
+
+	//<editor-fold defaultstate="collapsed" desc="Hidden Constructor">
+	private JpaAssertions() {
+	}
+	//</editor-fold>
+}
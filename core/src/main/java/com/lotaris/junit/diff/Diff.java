@@ -0,0 +1,350 @@
+package com.lotaris.junit.diff;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Minimal differences between two sequences, computed in bounded memory.
+ *
+ * <p>
+ * The common prefix of the sequences is skipped first. The remaining elements are then
+ * diffed with Myers' algorithm within windows of {@value #WINDOW} elements of each sequence:
+ * the edit script is kept up to a common element in the first half of the window and the
+ * next window starts from there. Differences spanning more than a window without any common
+ * element may therefore be reported as a larger change than the minimal one.
+ *
+ * <p>
+ * Only the first {@value #MAX_HUNKS} hunks are kept, with {@value #CONTEXT} unchanged
+ * elements around each difference, and the comparison stops as soon as more differences are
+ * found or once {@value #MAX_CHANGES} changed elements were found. The memory used therefore
+ * does not depend on the size of the sequences, except for the offsets of the lines of the
+ * compared texts.
+ *
+ * <p><pre>
+ * Diff diff = Diff.compareLines(expectedReport, actualReport);
+ * if (!diff.isEmpty()) {
+ *   fail(diff.toString());
+ * }
+ * </pre>
+ *
+ * @author Laurent Prevost <laurent.prevost@lotaris.com>
+ */
+public final class Diff {
+
+	/**
+	 * Number of unchanged elements shown around each difference
+	 */
+	public static final int CONTEXT = 3;
+
+	/**
+	 * Maximum number of hunks kept
+	 */
+	public static final int MAX_HUNKS = 10;
+
+	/**
+	 * Maximum number of lines of a hunk, the following ones being omitted
+	 */
+	public static final int MAX_HUNK_LINES = 50;
+
+	/**
+	 * Maximum number of changed elements found before the comparison stops
+	 */
+	public static final int MAX_CHANGES = MAX_HUNKS * MAX_HUNK_LINES;
+
+	/**
+	 * Number of elements of each sequence diffed at once
+	 */
+	static final int WINDOW = 1024;
+
+	private final int expectedSize;
+	private final int actualSize;
+	private final List<Hunk> hunks;
+	private final boolean truncated;
+
+	private Diff(int expectedSize, int actualSize, List<Hunk> hunks, boolean truncated) {
+		this.expectedSize = expectedSize;
+		this.actualSize = actualSize;
+		this.hunks = Collections.unmodifiableList(hunks);
+		this.truncated = truncated;
+	}
+
+	/**
+	 * Compares two lists element by element, with their equals method.
+	 *
+	 * @param expected the expected elements
+	 * @param actual the actual elements
+	 * @return the differences
+	 */
+	public static Diff compare(List<?> expected, List<?> actual) {
+		return compare(Sequence.of(expected), Sequence.of(actual));
+	}
+
+	/**
+	 * Compares two texts line by line. The lines are delimited by \n, a \r before it being
+	 * part of the line.
+	 *
+	 * @param expected the expected text
+	 * @param actual the actual text
+	 * @return the differences
+	 */
+	public static Diff compareLines(String expected, String actual) {
+		return compare(Sequence.lines(expected), Sequence.lines(actual));
+	}
+
+	private static Diff compare(Sequence expected, Sequence actual) {
+		final HunkCollector collector = new HunkCollector(expected, actual);
+		final int n = expected.size();
+		final int m = actual.size();
+		Myers myers = null;
+
+		int i = 0;
+		int j = 0;
+		while (!collector.isFull()) {
+			while (i < n && j < m && expected.equal(i, actual, j)) {
+				collector.equal(i++, j++);
+			}
+			if (i == n && j == m) {
+				break;
+			}
+
+			if (myers == null) {
+				myers = new Myers(expected, actual, WINDOW);
+			}
+
+			final int lengthA = Math.min(WINDOW, n - i);
+			final int lengthB = Math.min(WINDOW, m - j);
+			final int count = myers.diff(i, lengthA, j, lengthB);
+			final int committed = i + lengthA == n && j + lengthB == m ? count : syncPoint(myers, count, lengthA, lengthB);
+
+			if (committed < 0) {
+				// Nothing in common within the window, a part of it is reported as changed
+				for (int k = Math.max(1, Math.min(lengthA / 2, MAX_HUNK_LINES / 2)); k > 0 && i < n; k--) {
+					collector.change(Myers.DELETE, i++, j);
+				}
+				for (int k = Math.max(1, Math.min(lengthB / 2, MAX_HUNK_LINES / 2)); k > 0 && j < m; k--) {
+					collector.change(Myers.INSERT, i, j++);
+				}
+			} else {
+				for (int k = 0; k < committed && !collector.isFull(); k++) {
+					final byte op = myers.op(k);
+					if (op == Myers.EQUAL) {
+						collector.equal(i++, j++);
+					} else {
+						collector.change(op, i, j);
+						if (op == Myers.DELETE) {
+							i++;
+						} else {
+							j++;
+						}
+					}
+				}
+			}
+		}
+
+		return new Diff(n, m, collector.finish(), collector.isFull());
+	}
+
+	/**
+	 * Finds the number of operations to keep from the script of a window: up to the last common
+	 * element in the first half of the window, or up to the first common element if there is
+	 * none there.
+	 *
+	 * @return the number of operations to keep, or -1 if the window has no common element
+	 */
+	private static int syncPoint(Myers myers, int count, int lengthA, int lengthB) {
+		int syncPoint = -1;
+		int x = 0;
+		int y = 0;
+		for (int k = 0; k < count; k++) {
+			final byte op = myers.op(k);
+			if (op != Myers.INSERT) {
+				x++;
+			}
+			if (op != Myers.DELETE) {
+				y++;
+			}
+
+			if (op == Myers.EQUAL) {
+				if (x <= lengthA / 2 && y <= lengthB / 2) {
+					syncPoint = k + 1;
+				} else {
+					return syncPoint < 0 ? k + 1 : syncPoint;
+				}
+			}
+		}
+		return syncPoint;
+	}
+
+	/**
+	 * @return true if the sequences are equal
+	 */
+	public boolean isEmpty() {
+		return hunks.isEmpty();
+	}
+
+	public int getExpectedSize() {
+		return expectedSize;
+	}
+
+	public int getActualSize() {
+		return actualSize;
+	}
+
+	/**
+	 * @return the first {@value #MAX_HUNKS} hunks of differences
+	 */
+	public List<Hunk> getHunks() {
+		return hunks;
+	}
+
+	/**
+	 * @return true if the comparison stopped before the end of the sequences, the hunks showing only the first differences
+	 */
+	public boolean isTruncated() {
+		return truncated;
+	}
+
+	@Override
+	public String toString() {
+		final StringBuilder builder = new StringBuilder();
+		for (Hunk hunk : hunks) {
+			if (builder.length() > 0) {
+				builder.append('\n');
+			}
+			builder.append(hunk);
+		}
+		if (truncated) {
+			builder.append("\n... (comparison stopped, more differences not shown)");
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Groups the operations of the edit script into hunks, keeping the last unchanged elements
+	 * to show them before the next difference.
+	 */
+	private static class HunkCollector {
+
+		private final Sequence expected;
+		private final Sequence actual;
+		private final List<Hunk> hunks = new ArrayList<>();
+
+		/**
+		 * Positions of the last {@value #CONTEXT} unchanged elements
+		 */
+		private final int[] lastEqualA = new int[CONTEXT];
+		private final int[] lastEqualB = new int[CONTEXT];
+		private int equalCount;
+
+		/**
+		 * Number of unchanged elements since the last difference
+		 */
+		private int unchanged;
+
+		private List<String> lines;
+		private int startA;
+		private int startB;
+		private int lengthA;
+		private int lengthB;
+		private int omitted;
+		private int changes;
+		private boolean full;
+
+		HunkCollector(Sequence expected, Sequence actual) {
+			this.expected = expected;
+			this.actual = actual;
+		}
+
+		boolean isFull() {
+			return full;
+		}
+
+		void equal(int i, int j) {
+			unchanged++;
+			if (lines != null) {
+				if (unchanged <= CONTEXT) {
+					addUnchanged(i);
+				} else if (unchanged > 2 * CONTEXT) {
+					close();
+				}
+			}
+
+			lastEqualA[equalCount % CONTEXT] = i;
+			lastEqualB[equalCount % CONTEXT] = j;
+			equalCount++;
+		}
+
+		void change(byte op, int i, int j) {
+			if (changes == MAX_CHANGES) {
+				full = true;
+				return;
+			}
+			changes++;
+
+			if (lines == null) {
+				if (hunks.size() == MAX_HUNKS) {
+					full = true;
+					return;
+				}
+
+				// Opens a new hunk with the unchanged elements before the difference
+				final int context = Math.min(CONTEXT, unchanged);
+				lines = new ArrayList<>();
+				startA = i - context;
+				startB = j - context;
+				lengthA = 0;
+				lengthB = 0;
+				omitted = 0;
+				addLastUnchanged(context);
+			} else if (unchanged > CONTEXT) {
+				// Less than two contexts between both differences, the hunk goes on
+				addLastUnchanged(unchanged - CONTEXT);
+			}
+			unchanged = 0;
+
+			if (op == Myers.DELETE) {
+				lengthA++;
+				addLine("- ", expected, i);
+			} else {
+				lengthB++;
+				addLine("+ ", actual, j);
+			}
+		}
+
+		List<Hunk> finish() {
+			if (lines != null) {
+				close();
+			}
+			return hunks;
+		}
+
+		private void addLastUnchanged(int count) {
+			for (int k = equalCount - count; k < equalCount; k++) {
+				addUnchanged(lastEqualA[k % CONTEXT]);
+			}
+		}
+
+		private void addUnchanged(int i) {
+			lengthA++;
+			lengthB++;
+			addLine("  ", expected, i);
+		}
+
+		private void addLine(String prefix, Sequence sequence, int index) {
+			if (lines.size() < MAX_HUNK_LINES) {
+				lines.add(prefix + sequence.render(index));
+			} else {
+				omitted++;
+			}
+		}
+
+		private void close() {
+			if (omitted > 0) {
+				lines.add("  ... (" + omitted + " more lines)");
+			}
+			hunks.add(new Hunk(startA, lengthA, startB, lengthB, lines));
+			lines = null;
+		}
+	}
+}
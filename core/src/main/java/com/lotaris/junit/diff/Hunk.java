@@ -0,0 +1,75 @@
+package com.lotaris.junit.diff;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Group of close differences between two sequences, with the unchanged elements around them.
+ *
+ * <p>
+ * Each line starts with two characters: "- " for an element only in the expected sequence,
+ * "+ " for an element only in the actual sequence and two spaces for an unchanged element.
+ *
+ * @author Laurent Prevost <laurent.prevost@lotaris.com>
+ */
+public final class Hunk {
+
+	private final int expectedStart;
+	private final int expectedLength;
+	private final int actualStart;
+	private final int actualLength;
+	private final List<String> lines;
+
+	Hunk(int expectedStart, int expectedLength, int actualStart, int actualLength, List<String> lines) {
+		this.expectedStart = expectedStart;
+		this.expectedLength = expectedLength;
+		this.actualStart = actualStart;
+		this.actualLength = actualLength;
+		this.lines = Collections.unmodifiableList(lines);
+	}
+
+	/**
+	 * @return the index of the first element of the hunk in the expected sequence, starting at 0
+	 */
+	public int getExpectedStart() {
+		return expectedStart;
+	}
+
+	public int getExpectedLength() {
+		return expectedLength;
+	}
+
+	/**
+	 * @return the index of the first element of the hunk in the actual sequence, starting at 0
+	 */
+	public int getActualStart() {
+		return actualStart;
+	}
+
+	public int getActualLength() {
+		return actualLength;
+	}
+
+	/**
+	 * @return the lines of the hunk, at most {@value Diff#MAX_HUNK_LINES}
+	 */
+	public List<String> getLines() {
+		return lines;
+	}
+
+	/**
+	 * @return the hunk in the unified diff format, with a header numbering the elements from 1
+	 */
+	@Override
+	public String toString() {
+		final StringBuilder builder = new StringBuilder("@@ -")
+			.append(expectedLength > 0 ? expectedStart + 1 : expectedStart).append(',').append(expectedLength)
+			.append(" +")
+			.append(actualLength > 0 ? actualStart + 1 : actualStart).append(',').append(actualLength)
+			.append(" @@");
+		for (String line : lines) {
+			builder.append('\n').append(line);
+		}
+		return builder.toString();
+	}
+}
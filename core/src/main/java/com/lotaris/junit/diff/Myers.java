@@ -0,0 +1,204 @@
+package com.lotaris.junit.diff;
+
+import java.util.Arrays;
+
+/**
+ * Myers' O(ND) difference algorithm in its linear space variant: the middle snake of the
+ * edit graph is found by searching forward and backward at the same time, and both halves
+ * are then diffed recursively.
+ *
+ * <p>
+ * The elements are compared within a window of limited size, so all the buffers are
+ * allocated once. The hashes of the elements of the window are computed beforehand, so
+ * that most of the comparisons do not call equals.
+ *
+ * @author Laurent Prevost <laurent.prevost@lotaris.com>
+ * @see <a href="http://www.xmailserver.org/diff2.pdf">An O(ND) Difference Algorithm and Its Variations</a>
+ */
+final class Myers {
+
+	static final byte EQUAL = 0;
+	static final byte DELETE = 1;
+	static final byte INSERT = 2;
+
+	private final Sequence a;
+	private final Sequence b;
+
+	private final int[] hashesA;
+	private final int[] hashesB;
+	private final int[] forward;
+	private final int[] backward;
+	private final byte[] ops;
+
+	private int offsetA;
+	private int offsetB;
+	private int count;
+
+	/**
+	 * @param a the expected sequence
+	 * @param b the actual sequence
+	 * @param window the maximum number of elements of each sequence diffed at once
+	 */
+	Myers(Sequence a, Sequence b, int window) {
+		this.a = a;
+		this.b = b;
+		hashesA = new int[window];
+		hashesB = new int[window];
+		forward = new int[2 * window + 2];
+		backward = new int[2 * window + 2];
+		ops = new byte[2 * window];
+	}
+
+	/**
+	 * Computes the shortest edit script between two ranges of the sequences.
+	 *
+	 * @param startA the start of the range of the expected sequence
+	 * @param lengthA the length of the range of the expected sequence, at most the window
+	 * @param startB the start of the range of the actual sequence
+	 * @param lengthB the length of the range of the actual sequence, at most the window
+	 * @return the number of operations of the script, available through {@link #op(int)}
+	 */
+	int diff(int startA, int lengthA, int startB, int lengthB) {
+		offsetA = startA;
+		offsetB = startB;
+		for (int i = 0; i < lengthA; i++) {
+			hashesA[i] = a.hash(startA + i);
+		}
+		for (int j = 0; j < lengthB; j++) {
+			hashesB[j] = b.hash(startB + j);
+		}
+
+		count = 0;
+		script(0, lengthA, 0, lengthB);
+		return count;
+	}
+
+	/**
+	 * @param index the index of an operation of the last computed script
+	 * @return the operation: {@link #EQUAL}, {@link #DELETE} or {@link #INSERT}
+	 */
+	byte op(int index) {
+		return ops[index];
+	}
+
+	private boolean equal(int x, int y) {
+		return hashesA[x] == hashesB[y] && a.equal(offsetA + x, b, offsetB + y);
+	}
+
+	private void add(byte op, int times) {
+		Arrays.fill(ops, count, count + times, op);
+		count += times;
+	}
+
+	private void script(int startA, int endA, int startB, int endB) {
+		int prefix = 0;
+		while (startA < endA && startB < endB && equal(startA, startB)) {
+			startA++;
+			startB++;
+			prefix++;
+		}
+		add(EQUAL, prefix);
+
+		int suffix = 0;
+		while (startA < endA && startB < endB && equal(endA - 1, endB - 1)) {
+			endA--;
+			endB--;
+			suffix++;
+		}
+
+		if (startA == endA) {
+			add(INSERT, endB - startB);
+		} else if (startB == endB) {
+			add(DELETE, endA - startA);
+		} else {
+			bisect(startA, endA, startB, endB);
+		}
+
+		add(EQUAL, suffix);
+	}
+
+	/**
+	 * Finds the middle snake of the edit graph and diffs both halves around it.
+	 */
+	private void bisect(int startA, int endA, int startB, int endB) {
+		final int n = endA - startA;
+		final int m = endB - startB;
+		final int maxD = (n + m + 1) / 2;
+		final int offset = maxD;
+		final int length = 2 * maxD;
+		final int delta = n - m;
+		// The paths overlap on the forward pass if the delta is odd, on the backward pass otherwise
+		final boolean front = delta % 2 != 0;
+
+		Arrays.fill(forward, 0, length + 1, -1);
+		Arrays.fill(backward, 0, length + 1, -1);
+		forward[offset + 1] = 0;
+		backward[offset + 1] = 0;
+
+		// Diagonals which went off the edit graph are no longer followed
+		int forwardStart = 0;
+		int forwardEnd = 0;
+		int backwardStart = 0;
+		int backwardEnd = 0;
+
+		for (int d = 0; d < maxD; d++) {
+			for (int k = -d + forwardStart; k <= d - forwardEnd; k += 2) {
+				final int kOffset = offset + k;
+				int x = k == -d || (k != d && forward[kOffset - 1] < forward[kOffset + 1]) ? forward[kOffset + 1] : forward[kOffset - 1] + 1;
+				int y = x - k;
+				while (x < n && y < m && equal(startA + x, startB + y)) {
+					x++;
+					y++;
+				}
+				forward[kOffset] = x;
+
+				if (x > n) {
+					forwardEnd += 2;
+				} else if (y > m) {
+					forwardStart += 2;
+				} else if (front) {
+					final int reverseOffset = offset + delta - k;
+					if (reverseOffset >= 0 && reverseOffset < length && backward[reverseOffset] != -1 && x >= n - backward[reverseOffset]) {
+						split(startA, endA, startB, endB, x, y);
+						return;
+					}
+				}
+			}
+
+			for (int k = -d + backwardStart; k <= d - backwardEnd; k += 2) {
+				final int kOffset = offset + k;
+				int x = k == -d || (k != d && backward[kOffset - 1] < backward[kOffset + 1]) ? backward[kOffset + 1] : backward[kOffset - 1] + 1;
+				int y = x - k;
+				while (x < n && y < m && equal(endA - x - 1, endB - y - 1)) {
+					x++;
+					y++;
+				}
+				backward[kOffset] = x;
+
+				if (x > n) {
+					backwardEnd += 2;
+				} else if (y > m) {
+					backwardStart += 2;
+				} else if (!front) {
+					final int forwardOffset = offset + delta - k;
+					if (forwardOffset >= 0 && forwardOffset < length && forward[forwardOffset] != -1) {
+						final int forwardX = forward[forwardOffset];
+						if (forwardX >= n - x) {
+							split(startA, endA, startB, endB, forwardX, offset + forwardX - forwardOffset);
+							return;
+						}
+					}
+				}
+			}
+		}
+
+		// No common element
+		add(DELETE, n);
+		add(INSERT, m);
+	}
+
+	private void split(int startA, int endA, int startB, int endB, int x, int y) {
+		script(startA, startA + x, startB, startB + y);
+		script(startA + x, endA, startB + y, endB);
+	}
+}
@@ -0,0 +1,158 @@
+package com.lotaris.junit.diff;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * Random access view of the elements compared by a {@link Diff}.
+ *
+ * @author Laurent Prevost <laurent.prevost@lotaris.com>
+ */
+abstract class Sequence {
+
+	/**
+	 * Maximum number of characters of a rendered element
+	 */
+	static final int MAX_RENDERED_LENGTH = 200;
+
+	/**
+	 * @return the number of elements
+	 */
+	abstract int size();
+
+	/**
+	 * @param i the index of an element
+	 * @return the hash of the element, used to skip most of the comparisons
+	 */
+	abstract int hash(int i);
+
+	/**
+	 * @param i the index of an element of this sequence
+	 * @param other the other sequence, of the same type
+	 * @param j the index of an element of the other sequence
+	 * @return true if both elements are equal
+	 */
+	abstract boolean equal(int i, Sequence other, int j);
+
+	/**
+	 * @param i the index of an element
+	 * @return the element as shown in a diff, truncated to {@value #MAX_RENDERED_LENGTH} characters
+	 */
+	abstract String render(int i);
+
+	/**
+	 * @param list the elements
+	 * @return the sequence of the elements of the list, copied if the list has no random access
+	 */
+	static Sequence of(List<?> list) {
+		return new ListSequence(list instanceof RandomAccess ? list : new ArrayList<>(list));
+	}
+
+	/**
+	 * @param text the text
+	 * @return the sequence of the lines of the text, without copying them
+	 */
+	static Sequence lines(String text) {
+		return new LineSequence(text);
+	}
+
+	private static String truncate(CharSequence value, int start, int end) {
+		if (end - start <= MAX_RENDERED_LENGTH) {
+			return value.subSequence(start, end).toString();
+		}
+		return value.subSequence(start, start + MAX_RENDERED_LENGTH) + "... (" + (end - start) + " characters)";
+	}
+
+	//<editor-fold defaultstate="collapsed" desc="Implementations">
+	private static class ListSequence extends Sequence {
+
+		private final List<?> list;
+
+		ListSequence(List<?> list) {
+			this.list = list;
+		}
+
+		@Override
+		int size() {
+			return list.size();
+		}
+
+		@Override
+		int hash(int i) {
+			return Objects.hashCode(list.get(i));
+		}
+
+		@Override
+		boolean equal(int i, Sequence other, int j) {
+			return Objects.equals(list.get(i), ((ListSequence) other).list.get(j));
+		}
+
+		@Override
+		String render(int i) {
+			final String value = String.valueOf(list.get(i));
+			return truncate(value, 0, value.length());
+		}
+	}
+
+	/**
+	 * Lines of a text, delimited by \n. The text is not split: only the offset of each line is kept.
+	 */
+	private static class LineSequence extends Sequence {
+
+		private final String text;
+		private final int[] starts;
+
+		LineSequence(String text) {
+			this.text = text;
+
+			int count = 1;
+			for (int i = text.indexOf('\n'); i >= 0; i = text.indexOf('\n', i + 1)) {
+				count++;
+			}
+
+			starts = new int[count + 1];
+			int line = 1;
+			for (int i = text.indexOf('\n'); i >= 0; i = text.indexOf('\n', i + 1)) {
+				starts[line++] = i + 1;
+			}
+			starts[count] = text.length() + 1;
+		}
+
+		private int start(int i) {
+			return starts[i];
+		}
+
+		private int end(int i) {
+			return starts[i + 1] - 1;
+		}
+
+		@Override
+		int size() {
+			return starts.length - 1;
+		}
+
+		@Override
+		int hash(int i) {
+			int hash = 0;
+			for (int c = start(i), end = end(i); c < end; c++) {
+				hash = 31 * hash + text.charAt(c);
+			}
+			return hash;
+		}
+
+		@Override
+		boolean equal(int i, Sequence other, int j) {
+			final LineSequence lines = (LineSequence) other;
+			final int length = end(i) - start(i);
+			return length == lines.end(j) - lines.start(j) && text.regionMatches(start(i), lines.text, lines.start(j), length);
+		}
+
+		@Override
+		String render(int i) {
+			return truncate(text, start(i), end(i));
+		}
+	}
+	//</editor-fold>
+}
@@ -0,0 +1,144 @@
+package com.lotaris.junit.helpers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import javax.persistence.AssociationOverride;
+import javax.persistence.JoinColumn;
+
+/**
+ * Helper class to reflect the attributes of an AssociationOverride annotation contained
+ * within an AssociationOverrides annotation.
+ *
+ * <p>
+ * Instances are immutable and are created through a {@link Builder}. Attributes left
+ * unset take the default value of the {@link AssociationOverride} annotation.
+ *
+ * <p><pre>
+ * AssociationOverrideDetails.builder("owner").joinColumnNames("OWNER_ID").build();
+ * </pre>
+ *
+ * @author Laurent Prevost <laurent.prevost@lotaris.com>
+ */
+public final class AssociationOverrideDetails implements OverrideDetails {
+	private final String name;
+	private final List<String> joinColumnNames;
+	private final String joinTableName;
+
+	/**
+	 * Precomputed as the details are compared many times when indexed by name
+	 */
+	private final int hash;
+
+	private AssociationOverrideDetails(Builder builder) {
+		name = builder.name != null ? builder.name : "";
+		joinColumnNames = Collections.unmodifiableList(new ArrayList<>(builder.joinColumnNames));
+		joinTableName = builder.joinTableName != null ? builder.joinTableName : "";
+
+		hash = Objects.hash(name, joinColumnNames, joinTableName);
+	}
+
+	/**
+	 * Creates a new builder for the override of the specified association.
+	 *
+	 * @param name the name of the overridden association
+	 * @return the builder
+	 */
+	public static Builder builder(String name) {
+		return new Builder().name(name);
+	}
+
+	/**
+	 * Reads the details of an AssociationOverride annotation.
+	 *
+	 * @param annotation the annotation
+	 * @return the details of the annotation
+	 */
+	public static AssociationOverrideDetails of(AssociationOverride annotation) {
+		final JoinColumn[] joinColumns = annotation.joinColumns();
+		final String[] names = new String[joinColumns.length];
+		for (int i = 0; i < joinColumns.length; i++) {
+			names[i] = joinColumns[i].name();
+		}
+
+		return new Builder()
+			.name(annotation.name())
+			.joinColumnNames(names)
+			.joinTableName(annotation.joinTable().name())
+			.build();
+	}
+
+	// <editor-fold defaultstate="collapsed" desc="Getters">
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	public List<String> getJoinColumnNames() {
+		return joinColumnNames;
+	}
+
+	public String getJoinTableName() {
+		return joinTableName;
+	}
+	// </editor-fold>
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		} else if (!(obj instanceof AssociationOverrideDetails)) {
+			return false;
+		}
+
+		final AssociationOverrideDetails other = (AssociationOverrideDetails) obj;
+		return hash == other.hash
+			&& name.equals(other.name)
+			&& joinColumnNames.equals(other.joinColumnNames)
+			&& joinTableName.equals(other.joinTableName);
+	}
+
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
+	@Override
+	public String toString() {
+		return "AssociationOverride(name=" + name + ", joinColumns=" + joinColumnNames + ", joinTable=" + joinTableName + ")";
+	}
+
+	/**
+	 * Builder of {@link AssociationOverrideDetails}. Attributes which are not set (or set to null)
+	 * keep the default value of the {@link AssociationOverride} annotation.
+	 */
+	public static final class Builder {
+		private String name;
+		private List<String> joinColumnNames = Collections.emptyList();
+		private String joinTableName;
+
+		private Builder() {
+		}
+
+		public Builder name(String name) {
+			this.name = name;
+			return this;
+		}
+
+		public Builder joinColumnNames(String... joinColumnNames) {
+			this.joinColumnNames = joinColumnNames != null ? Arrays.asList(joinColumnNames) : Collections.<String>emptyList();
+			return this;
+		}
+
+		public Builder joinTableName(String joinTableName) {
+			this.joinTableName = joinTableName;
+			return this;
+		}
+
+		public AssociationOverrideDetails build() {
+			return new AssociationOverrideDetails(this);
+		}
+	}
+}
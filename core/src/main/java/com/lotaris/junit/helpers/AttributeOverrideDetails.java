@@ -0,0 +1,252 @@
+package com.lotaris.junit.helpers;
+
+import java.util.Objects;
+import javax.persistence.AttributeOverride;
+import javax.persistence.Column;
+
+/**
+ * Helper class to reflect the attributes of an annotation contained within
+ * another annotation.
+ *
+ * <p>
+ * Instances are immutable and are created through a {@link Builder}. Attributes
+ * left unset take the default value of the {@link Column} annotation, so two details
+ * describing the same override are equal whether the defaults were set explicitly or not.
+ *
+ * <p><pre>
+ * AttributeOverrideDetails.builder("street").columnName("STREET").columnLength(100).build();
+ * </pre>
+ *
+ * @author Alexandru Obaj <alexandru.obaj@fortech.ro>
+ */
+public final class AttributeOverrideDetails implements OverrideDetails {
+	private final String name;
+	private final String columnName;
+	private final boolean columnUnique;
+	private final boolean columnNullable;
+	private final boolean columnInsertable;
+	private final boolean columnUpdatable;
+	private final String columnDefinition;
+	private final String columnTable;
+	private final int columnLength;
+	private final int columnPrecision;
+	private final int columnScale;
+
+	/**
+	 * Precomputed as the details are compared many times when indexed by name
+	 */
+	private final int hash;
+
+	private AttributeOverrideDetails(Builder builder) {
+		name = builder.name != null ? builder.name : "";
+		columnName = builder.columnName != null ? builder.columnName : "";
+		columnUnique = builder.columnUnique != null ? builder.columnUnique : false;
+		columnNullable = builder.columnNullable != null ? builder.columnNullable : true;
+		columnInsertable = builder.columnInsertable != null ? builder.columnInsertable : true;
+		columnUpdatable = builder.columnUpdatable != null ? builder.columnUpdatable : true;
+		columnDefinition = builder.columnDefinition != null ? builder.columnDefinition : "";
+		columnTable = builder.columnTable != null ? builder.columnTable : "";
+		columnLength = builder.columnLength != null ? builder.columnLength : 255;
+		columnPrecision = builder.columnPrecision != null ? builder.columnPrecision : 0;
+		columnScale = builder.columnScale != null ? builder.columnScale : 0;
+
+		hash = Objects.hash(name, columnName, columnUnique, columnNullable, columnInsertable, columnUpdatable,
+			columnDefinition, columnTable, columnLength, columnPrecision, columnScale);
+	}
+
+	/**
+	 * Creates a new builder for the override of the specified attribute.
+	 *
+	 * @param name the name of the overridden attribute
+	 * @return the builder
+	 */
+	public static Builder builder(String name) {
+		return new Builder().name(name);
+	}
+
+	/**
+	 * Reads the details of an AttributeOverride annotation.
+	 *
+	 * @param annotation the annotation
+	 * @return the details of the annotation
+	 */
+	public static AttributeOverrideDetails of(AttributeOverride annotation) {
+		final Column column = annotation.column();
+		return new Builder()
+			.name(annotation.name())
+			.columnName(column.name())
+			.columnUnique(column.unique())
+			.columnNullable(column.nullable())
+			.columnInsertable(column.insertable())
+			.columnUpdatable(column.updatable())
+			.columnDefinition(column.columnDefinition())
+			.columnTable(column.table())
+			.columnLength(column.length())
+			.columnPrecision(column.precision())
+			.columnScale(column.scale())
+			.build();
+	}
+
+	// <editor-fold defaultstate="collapsed" desc="Getters">
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	public String getColumnName() {
+		return columnName;
+	}
+
+	public boolean getColumnUnique() {
+		return columnUnique;
+	}
+
+	public boolean getColumnNullable() {
+		return columnNullable;
+	}
+
+	public boolean getColumnInsertable() {
+		return columnInsertable;
+	}
+
+	public boolean getColumnUpdatable() {
+		return columnUpdatable;
+	}
+
+	public String getColumnDefinition() {
+		return columnDefinition;
+	}
+
+	public String getColumnTable() {
+		return columnTable;
+	}
+
+	public int getColumnLength() {
+		return columnLength;
+	}
+
+	public int getColumnPrecision() {
+		return columnPrecision;
+	}
+
+	public int getColumnScale() {
+		return columnScale;
+	}
+	// </editor-fold>
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		} else if (!(obj instanceof AttributeOverrideDetails)) {
+			return false;
+		}
+
+		final AttributeOverrideDetails other = (AttributeOverrideDetails) obj;
+		return hash == other.hash
+			&& columnUnique == other.columnUnique
+			&& columnNullable == other.columnNullable
+			&& columnInsertable == other.columnInsertable
+			&& columnUpdatable == other.columnUpdatable
+			&& columnLength == other.columnLength
+			&& columnPrecision == other.columnPrecision
+			&& columnScale == other.columnScale
+			&& name.equals(other.name)
+			&& columnName.equals(other.columnName)
+			&& columnDefinition.equals(other.columnDefinition)
+			&& columnTable.equals(other.columnTable);
+	}
+
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
+	@Override
+	public String toString() {
+		return "AttributeOverride(name=" + name + ", column=Column(name=" + columnName + ", unique=" + columnUnique
+			+ ", nullable=" + columnNullable + ", insertable=" + columnInsertable + ", updatable=" + columnUpdatable
+			+ ", columnDefinition=" + columnDefinition + ", table=" + columnTable + ", length=" + columnLength
+			+ ", precision=" + columnPrecision + ", scale=" + columnScale + "))";
+	}
+
+	/**
+	 * Builder of {@link AttributeOverrideDetails}. Attributes which are not set (or set to null)
+	 * keep the default value of the {@link Column} annotation.
+	 */
+	public static final class Builder {
+		private String name;
+		private String columnName;
+		private Boolean columnUnique;
+		private Boolean columnNullable;
+		private Boolean columnInsertable;
+		private Boolean columnUpdatable;
+		private String columnDefinition;
+		private String columnTable;
+		private Integer columnLength;
+		private Integer columnPrecision;
+		private Integer columnScale;
+
+		private Builder() {
+		}
+
+		public Builder name(String name) {
+			this.name = name;
+			return this;
+		}
+
+		public Builder columnName(String columnName) {
+			this.columnName = columnName;
+			return this;
+		}
+
+		public Builder columnUnique(Boolean columnUnique) {
+			this.columnUnique = columnUnique;
+			return this;
+		}
+
+		public Builder columnNullable(Boolean columnNullable) {
+			this.columnNullable = columnNullable;
+			return this;
+		}
+
+		public Builder columnInsertable(Boolean columnInsertable) {
+			this.columnInsertable = columnInsertable;
+			return this;
+		}
+
+		public Builder columnUpdatable(Boolean columnUpdatable) {
+			this.columnUpdatable = columnUpdatable;
+			return this;
+		}
+
+		public Builder columnDefinition(String columnDefinition) {
+			this.columnDefinition = columnDefinition;
+			return this;
+		}
+
+		public Builder columnTable(String columnTable) {
+			this.columnTable = columnTable;
+			return this;
+		}
+
+		public Builder columnLength(Integer columnLength) {
+			this.columnLength = columnLength;
+			return this;
+		}
+
+		public Builder columnPrecision(Integer columnPrecision) {
+			this.columnPrecision = columnPrecision;
+			return this;
+		}
+
+		public Builder columnScale(Integer columnScale) {
+			this.columnScale = columnScale;
+			return this;
+		}
+
+		public AttributeOverrideDetails build() {
+			return new AttributeOverrideDetails(this);
+		}
+	}
+}
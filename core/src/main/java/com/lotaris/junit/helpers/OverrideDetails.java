@@ -0,0 +1,19 @@
+package com.lotaris.junit.helpers;
+
+/**
+ * Common contract of the helper classes reflecting the overrides contained within
+ * an annotation like AttributeOverrides or AssociationOverrides.
+ *
+ * <p>
+ * Overrides are identified by the name of the overridden attribute, which allows to
+ * compare them regardless of their declaration order.
+ *
+ * @author Laurent Prevost <laurent.prevost@lotaris.com>
+ */
+public interface OverrideDetails {
+
+	/**
+	 * @return the name of the overridden attribute or association
+	 */
+	String getName();
+}
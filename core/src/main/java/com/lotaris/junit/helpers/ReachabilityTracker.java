@@ -0,0 +1,140 @@
+package com.lotaris.junit.helpers;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Tracks objects through weak references to find out whether they become unreachable.
+ *
+ * <p>
+ * The garbage collector cannot be forced to run, it can only be hinted. The tracker
+ * therefore escalates its hints over a bounded number of attempts: each attempt requests
+ * a collection and waits twice as long as the previous one for the references to be
+ * enqueued, and the later attempts also allocate short-lived garbage to put the heap
+ * under pressure.
+ *
+ * <p><pre>
+ * ReachabilityTracker tracker = new ReachabilityTracker(createObjects());
+ * if (!tracker.awaitUnreachable()) {
+ *   List&lt;Object&gt; leaked = tracker.getReachable();
+ * }
+ * </pre>
+ *
+ * @author Laurent Prevost <laurent.prevost@lotaris.com>
+ */
+public class ReachabilityTracker {
+
+	/**
+	 * Maximum number of collection hints
+	 */
+	private static final int MAX_ATTEMPTS = 8;
+
+	/**
+	 * Time to wait for the references to be enqueued after the first hint, doubled on every attempt
+	 */
+	private static final long INITIAL_WAIT = 10;
+
+	/**
+	 * Attempt from which garbage is allocated to put the heap under pressure
+	 */
+	private static final int PRESSURE_ATTEMPT = 3;
+
+	/**
+	 * Size of the garbage chunks allocated to put the heap under pressure
+	 */
+	private static final int PRESSURE_CHUNK_SIZE = 1024 * 1024;
+
+	private final ReferenceQueue<Object> queue = new ReferenceQueue<>();
+	private final List<WeakReference<Object>> references;
+	private int unreachable;
+
+	/**
+	 * Constructor. The collection itself is not retained, only its elements are tracked.
+	 *
+	 * @param objects the objects to track
+	 */
+	public ReachabilityTracker(Collection<?> objects) {
+		references = new ArrayList<>(objects.size());
+		for (Object object : objects) {
+			references.add(new WeakReference<>(object, queue));
+		}
+	}
+
+	/**
+	 * Hints the garbage collector until all the tracked objects have become unreachable
+	 * or the maximum number of attempts is reached.
+	 *
+	 * @return true if all the tracked objects have become unreachable
+	 * @throws InterruptedException if the current thread is interrupted while waiting
+	 */
+	public boolean awaitUnreachable() throws InterruptedException {
+		drain();
+
+		long wait = INITIAL_WAIT;
+		for (int attempt = 0; attempt < MAX_ATTEMPTS && unreachable < references.size(); attempt++) {
+			if (attempt >= PRESSURE_ATTEMPT) {
+				allocateGarbage(attempt - PRESSURE_ATTEMPT + 1);
+			}
+
+			System.gc();
+
+			Reference<?> reference = queue.remove(wait);
+			if (reference != null) {
+				unreachable++;
+				drain();
+			}
+
+			wait *= 2;
+		}
+
+		return unreachable == references.size();
+	}
+
+	/**
+	 * @return the tracked objects which are still reachable
+	 */
+	public List<Object> getReachable() {
+		List<Object> reachable = new ArrayList<>();
+		for (WeakReference<Object> reference : references) {
+			Object object = reference.get();
+			if (object != null) {
+				reachable.add(object);
+			}
+		}
+		return reachable;
+	}
+
+	/**
+	 * @return the number of tracked objects
+	 */
+	public int size() {
+		return references.size();
+	}
+
+	/**
+	 * Counts the references already enqueued without waiting.
+	 */
+	private void drain() {
+		while (queue.poll() != null) {
+			unreachable++;
+		}
+	}
+
+	/**
+	 * Allocates garbage proportionally to the escalation level, bounded by a fraction of the free heap.
+	 */
+	private static void allocateGarbage(int level) {
+		final Runtime runtime = Runtime.getRuntime();
+		final long budget = Math.min((long) level * 16 * PRESSURE_CHUNK_SIZE, runtime.freeMemory() / 4);
+
+		List<byte[]> garbage = new ArrayList<>();
+		for (long allocated = 0; allocated < budget; allocated += PRESSURE_CHUNK_SIZE) {
+			garbage.add(new byte[PRESSURE_CHUNK_SIZE]);
+		}
+		garbage.clear();
+	}
+}
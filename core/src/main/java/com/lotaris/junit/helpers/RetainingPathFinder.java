@@ -0,0 +1,183 @@
+package com.lotaris.junit.helpers;
+
+import java.lang.ref.Reference;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.WeakHashMap;
+
+/**
+ * Finds the chain of references through which an object is retained by a root object.
+ *
+ * <p>
+ * The object graph is explored breadth-first from the roots, so the shortest path is
+ * found. Fields are read by reflection. Maps and collections are explored through their
+ * public API, which also works when their internals cannot be made accessible. Passing a
+ * {@link Class} as root explores its static fields, which is the usual way of leaking
+ * objects. Weak and soft references are not followed as they do not retain objects.
+ *
+ * @author Laurent Prevost <laurent.prevost@lotaris.com>
+ */
+public class RetainingPathFinder {
+
+	/**
+	 * Maximum number of objects explored before giving up
+	 */
+	private static final int MAX_VISITED = 1_000_000;
+
+	/**
+	 * Maximum length of the description of a map key in a path
+	 */
+	private static final int MAX_KEY_LENGTH = 40;
+
+	private final Object[] roots;
+
+	/**
+	 * Constructor
+	 *
+	 * @param roots the objects from which the paths are searched
+	 */
+	public RetainingPathFinder(Object... roots) {
+		this.roots = roots;
+	}
+
+	/**
+	 * Finds the shortest path from one of the roots to the specified object.
+	 *
+	 * @param target the retained object
+	 * @return the path description, or null if the object cannot be reached from the roots
+	 */
+	public String findPath(Object target) {
+		final Map<Object, Node> visited = new IdentityHashMap<>();
+		final Queue<Node> queue = new ArrayDeque<>();
+
+		for (Object root : roots) {
+			if (root != null && !visited.containsKey(root)) {
+				Node node = new Node(null, root, "root " + describe(root));
+				visited.put(root, node);
+				queue.add(node);
+			}
+		}
+
+		while (!queue.isEmpty() && visited.size() < MAX_VISITED) {
+			final Node node = queue.remove();
+			if (node.object == target) {
+				return node.toString();
+			}
+
+			for (Node child : children(node)) {
+				if (!visited.containsKey(child.object)) {
+					visited.put(child.object, child);
+					queue.add(child);
+				}
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Lists the objects directly referenced by the object of a node.
+	 */
+	private static List<Node> children(Node node) {
+		final List<Node> children = new ArrayList<>();
+		final Object object = node.object;
+
+		try {
+			if (object instanceof Reference || object instanceof String || object instanceof Number || object instanceof Enum) {
+				return children;
+			} else if (object instanceof Class) {
+				addFields(node, (Class) object, null, true, children);
+			} else if (object.getClass().isArray()) {
+				if (!object.getClass().getComponentType().isPrimitive()) {
+					for (int i = 0; i < Array.getLength(object); i++) {
+						addChild(node, Array.get(object, i), "[" + i + "]", children);
+					}
+				}
+			} else if (object instanceof Map) {
+				for (Map.Entry<?, ?> entry : ((Map<?, ?>) object).entrySet()) {
+					if (!(object instanceof WeakHashMap)) {
+						addChild(node, entry.getKey(), "<key " + abbreviate(entry.getKey()) + ">", children);
+					}
+					addChild(node, entry.getValue(), "[" + abbreviate(entry.getKey()) + "]", children);
+				}
+			} else if (object instanceof Collection) {
+				int i = 0;
+				for (Object element : (Collection<?>) object) {
+					addChild(node, element, "[" + i++ + "]", children);
+				}
+			} else {
+				for (Class c = object.getClass(); c != null && c != Object.class; c = c.getSuperclass()) {
+					addFields(node, c, object, false, children);
+				}
+			}
+		} catch (RuntimeException re) {
+			// The object is modified concurrently or cannot be introspected, its children are partially explored
+		}
+
+		return children;
+	}
+
+	/**
+	 * Adds the objects referenced by the static or instance fields declared by a class.
+	 */
+	private static void addFields(Node node, Class c, Object instance, boolean statics, List<Node> children) {
+		for (Field field : c.getDeclaredFields()) {
+			if (field.getType().isPrimitive() || Modifier.isStatic(field.getModifiers()) != statics) {
+				continue;
+			}
+
+			try {
+				field.setAccessible(true);
+				addChild(node, field.get(instance), "." + field.getName(), children);
+			} catch (RuntimeException | IllegalAccessException e) {
+				// The field is not accessible (e.g. in a module which is not open), it is skipped
+			}
+		}
+	}
+
+	private static void addChild(Node parent, Object child, String label, List<Node> children) {
+		if (child != null) {
+			children.add(new Node(parent, child, label));
+		}
+	}
+
+	private static String describe(Object object) {
+		return object instanceof Class ? ((Class) object).getName() + ".class" : object.getClass().getName() + "@" + Integer.toHexString(System.identityHashCode(object));
+	}
+
+	private static String abbreviate(Object key) {
+		final String description = String.valueOf(key);
+		return description.length() <= MAX_KEY_LENGTH ? description : description.substring(0, MAX_KEY_LENGTH) + "...";
+	}
+
+	/**
+	 * Step of a path in the object graph
+	 */
+	private static final class Node {
+		private final Node parent;
+		private final Object object;
+		private final String label;
+
+		private Node(Node parent, Object object, String label) {
+			this.parent = parent;
+			this.object = object;
+			this.label = label;
+		}
+
+		@Override
+		public String toString() {
+			if (parent == null) {
+				return label;
+			}
+			return parent + " -> " + label + " (" + describe(object) + ")";
+		}
+	}
+}
@@ -0,0 +1,188 @@
+package com.lotaris.junit.json;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.codehaus.jackson.annotate.JsonProperty;
+
+/**
+ * JSON contract of a DTO class: the JSON properties declared with {@link JsonProperty}
+ * on the fields of the class and of its superclasses, and the expected shape of their values.
+ *
+ * <p>
+ * Contracts are built once per class and cached. The contracts of the nested DTOs are
+ * resolved lazily, which supports recursive structures.
+ *
+ * @author Laurent Prevost <laurent.prevost@lotaris.com>
+ */
+final class JsonContract {
+
+	private static final ConcurrentMap<Class, JsonContract> CONTRACTS = new ConcurrentHashMap<>();
+
+	/**
+	 * Expected shape of a JSON value
+	 */
+	enum Kind {
+		/**
+		 * A scalar value: string, number, boolean or null
+		 */
+		VALUE,
+		/**
+		 * An object verified against the contract of a DTO class
+		 */
+		OBJECT,
+		/**
+		 * An array whose elements have the same shape
+		 */
+		ARRAY,
+		/**
+		 * An object with free property names whose values have the same shape
+		 */
+		MAP,
+		/**
+		 * Any value, not verified
+		 */
+		ANY
+	}
+
+	/**
+	 * Expected shape of a JSON value, derived from the type of a field
+	 */
+	static final class Shape {
+		private static final Shape VALUE = new Shape(Kind.VALUE, null, null);
+		private static final Shape ANY = new Shape(Kind.ANY, null, null);
+
+		final Kind kind;
+		private final Class dtoClass;
+		final Shape element;
+
+		private Shape(Kind kind, Class dtoClass, Shape element) {
+			this.kind = kind;
+			this.dtoClass = dtoClass;
+			this.element = element;
+		}
+
+		/**
+		 * @return the contract of the DTO class of an object shape
+		 */
+		JsonContract contract() {
+			return JsonContract.of(dtoClass);
+		}
+
+		static Shape of(Type type) {
+			if (type instanceof Class) {
+				final Class c = (Class) type;
+				if (c.isArray()) {
+					return new Shape(Kind.ARRAY, null, of(c.getComponentType()));
+				} else if (c == Object.class || Collection.class.isAssignableFrom(c) || Map.class.isAssignableFrom(c)) {
+					return ANY;
+				} else if (c.isPrimitive() || c.isEnum() || c.getName().startsWith("java.") || c.getName().startsWith("javax.")) {
+					return VALUE;
+				} else {
+					return new Shape(Kind.OBJECT, c, null);
+				}
+			} else if (type instanceof ParameterizedType) {
+				final ParameterizedType parameterized = (ParameterizedType) type;
+				final Class raw = (Class) parameterized.getRawType();
+				final Type[] arguments = parameterized.getActualTypeArguments();
+				if (Collection.class.isAssignableFrom(raw) && arguments.length == 1) {
+					return new Shape(Kind.ARRAY, null, of(arguments[0]));
+				} else if (Map.class.isAssignableFrom(raw) && arguments.length == 2) {
+					return new Shape(Kind.MAP, null, of(arguments[1]));
+				}
+				return of(raw);
+			} else if (type instanceof GenericArrayType) {
+				return new Shape(Kind.ARRAY, null, of(((GenericArrayType) type).getGenericComponentType()));
+			}
+
+			// Type variables and wildcards cannot be resolved from the field alone
+			return ANY;
+		}
+	}
+
+	private final Class dtoClass;
+	private final Map<String, Integer> indexes;
+	private final List<String> names;
+	private final List<Shape> shapes;
+
+	private JsonContract(Class dtoClass) {
+		this.dtoClass = dtoClass;
+
+		final Map<String, Integer> propertyIndexes = new HashMap<>();
+		final List<String> propertyNames = new ArrayList<>();
+		final List<Shape> propertyShapes = new ArrayList<>();
+
+		for (Class c = dtoClass; c != null && c != Object.class; c = c.getSuperclass()) {
+			for (Field field : c.getDeclaredFields()) {
+				final JsonProperty annotation = field.getAnnotation(JsonProperty.class);
+				if (annotation == null || Modifier.isStatic(field.getModifiers())) {
+					continue;
+				}
+
+				final String name = annotation.value().isEmpty() ? field.getName() : annotation.value();
+				if (!propertyIndexes.containsKey(name)) {
+					propertyIndexes.put(name, propertyNames.size());
+					propertyNames.add(name);
+					propertyShapes.add(Shape.of(field.getGenericType()));
+				}
+			}
+		}
+
+		indexes = Collections.unmodifiableMap(propertyIndexes);
+		names = Collections.unmodifiableList(propertyNames);
+		shapes = Collections.unmodifiableList(propertyShapes);
+	}
+
+	/**
+	 * Returns the cached contract of a DTO class, building it on first use.
+	 *
+	 * @param dtoClass the DTO class
+	 * @return the contract of the class
+	 */
+	static JsonContract of(Class dtoClass) {
+		JsonContract contract = CONTRACTS.get(dtoClass);
+		if (contract == null) {
+			contract = new JsonContract(dtoClass);
+			final JsonContract existing = CONTRACTS.putIfAbsent(dtoClass, contract);
+			if (existing != null) {
+				contract = existing;
+			}
+		}
+		return contract;
+	}
+
+	/**
+	 * @param name the JSON property name
+	 * @return the index of the property, or -1 if the contract does not declare it
+	 */
+	int indexOf(String name) {
+		final Integer index = indexes.get(name);
+		return index != null ? index : -1;
+	}
+
+	int size() {
+		return names.size();
+	}
+
+	String name(int index) {
+		return names.get(index);
+	}
+
+	Shape shape(int index) {
+		return shapes.get(index);
+	}
+
+	Class getDtoClass() {
+		return dtoClass;
+	}
+}
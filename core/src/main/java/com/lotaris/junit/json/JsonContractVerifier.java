@@ -0,0 +1,216 @@
+package com.lotaris.junit.json;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import org.codehaus.jackson.JsonFactory;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonToken;
+import org.codehaus.jackson.annotate.JsonProperty;
+
+/**
+ * Verifies that JSON payloads match the {@link JsonProperty} mappings of a DTO class tree.
+ *
+ * <p>
+ * The payloads are streamed token by token with the Jackson {@link JsonParser}, without
+ * being bound to objects, so the memory used only depends on the nesting depth of the
+ * payload and on the number of reported mismatches, not on the size of the payload.
+ * This makes it possible to verify golden files of hundreds of megabytes.
+ *
+ * <p>
+ * The DTO class tree is followed through the field types: nested DTOs, arrays,
+ * collections and maps of DTOs. A payload whose root is an array is verified as a
+ * sequence of DTOs. Each mismatch is reported with its JSON path.
+ *
+ * <p><pre>
+ * List&lt;String&gt; mismatches = JsonContractVerifier.forClass(UserDto.class).reportMissingProperties(true).verify(in);
+ * </pre>
+ *
+ * @author Laurent Prevost <laurent.prevost@lotaris.com>
+ */
+public class JsonContractVerifier {
+
+	private static final JsonFactory FACTORY = new JsonFactory();
+
+	private final JsonContract contract;
+	private boolean reportMissingProperties;
+	private int maxMismatches = 100;
+
+	private JsonContractVerifier(Class dtoClass) {
+		this.contract = JsonContract.of(dtoClass);
+	}
+
+	/**
+	 * Creates a verifier for the specified DTO class. The contracts of the class tree are cached,
+	 * creating several verifiers for the same class is cheap.
+	 *
+	 * @param dtoClass the DTO class
+	 * @return the verifier
+	 */
+	public static JsonContractVerifier forClass(Class dtoClass) {
+		return new JsonContractVerifier(dtoClass);
+	}
+
+	/**
+	 * @param reportMissingProperties true to also report the mapped properties absent from the JSON objects, false by default
+	 * @return this verifier
+	 */
+	public JsonContractVerifier reportMissingProperties(boolean reportMissingProperties) {
+		this.reportMissingProperties = reportMissingProperties;
+		return this;
+	}
+
+	/**
+	 * @param maxMismatches the maximum number of reported mismatches, 100 by default (the others are only counted)
+	 * @return this verifier
+	 */
+	public JsonContractVerifier maxMismatches(int maxMismatches) {
+		this.maxMismatches = maxMismatches;
+		return this;
+	}
+
+	/**
+	 * Verifies a JSON payload. The stream is not closed.
+	 *
+	 * @param in the JSON payload
+	 * @return the mismatches, empty if the payload matches the contract
+	 * @throws IOException if the payload cannot be read or is not valid JSON
+	 */
+	public List<String> verify(InputStream in) throws IOException {
+		final Verification verification = new Verification();
+
+		try (JsonParser parser = FACTORY.createJsonParser(in)) {
+			parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+
+			JsonToken token = parser.nextToken();
+			if (token == JsonToken.START_ARRAY) {
+				final StringBuilder path = new StringBuilder("$");
+				int index = 0;
+				while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+					path.append('[').append(index++).append(']');
+					verifyObject(parser, token, contract, path, verification);
+					path.setLength(1);
+				}
+			} else if (token != null) {
+				verifyObject(parser, token, contract, new StringBuilder("$"), verification);
+			}
+		}
+
+		if (verification.count > verification.mismatches.size()) {
+			verification.mismatches.add("... and " + (verification.count - verification.mismatches.size()) + " more mismatches");
+		}
+
+		return Collections.unmodifiableList(verification.mismatches);
+	}
+
+	/**
+	 * Verifies the value starting at the current token against its expected shape.
+	 */
+	private void verifyValue(JsonParser parser, JsonToken token, JsonContract.Shape shape, StringBuilder path, Verification verification) throws IOException {
+		if (token == JsonToken.VALUE_NULL || shape.kind == JsonContract.Kind.ANY) {
+			parser.skipChildren();
+			return;
+		}
+
+		switch (shape.kind) {
+			case OBJECT:
+				verifyObject(parser, token, shape.contract(), path, verification);
+				break;
+
+			case ARRAY:
+				if (token != JsonToken.START_ARRAY) {
+					verification.mismatch("expected an array at " + path + " but was " + token);
+					parser.skipChildren();
+					break;
+				}
+
+				final int arrayLength = path.length();
+				int index = 0;
+				while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+					path.append('[').append(index++).append(']');
+					verifyValue(parser, token, shape.element, path, verification);
+					path.setLength(arrayLength);
+				}
+				break;
+
+			case MAP:
+				if (token != JsonToken.START_OBJECT) {
+					verification.mismatch("expected an object at " + path + " but was " + token);
+					parser.skipChildren();
+					break;
+				}
+
+				final int mapLength = path.length();
+				while (parser.nextToken() == JsonToken.FIELD_NAME) {
+					path.append('.').append(parser.getCurrentName());
+					verifyValue(parser, parser.nextToken(), shape.element, path, verification);
+					path.setLength(mapLength);
+				}
+				break;
+
+			default:
+				if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+					verification.mismatch("expected a value at " + path + " but was " + token);
+					parser.skipChildren();
+				}
+		}
+	}
+
+	/**
+	 * Verifies the object starting at the current token against the contract of a DTO class.
+	 */
+	private void verifyObject(JsonParser parser, JsonToken token, JsonContract objectContract, StringBuilder path, Verification verification) throws IOException {
+		if (token == JsonToken.VALUE_NULL) {
+			return;
+		} else if (token != JsonToken.START_OBJECT) {
+			verification.mismatch("expected an object of " + objectContract.getDtoClass().getName() + " at " + path + " but was " + token);
+			parser.skipChildren();
+			return;
+		}
+
+		final BitSet seen = reportMissingProperties ? new BitSet(objectContract.size()) : null;
+		final int length = path.length();
+
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			final String name = parser.getCurrentName();
+			final JsonToken valueToken = parser.nextToken();
+			final int index = objectContract.indexOf(name);
+			path.append('.').append(name);
+
+			if (index < 0) {
+				verification.mismatch("unknown property " + path + " for " + objectContract.getDtoClass().getName());
+				parser.skipChildren();
+			} else {
+				if (seen != null) {
+					seen.set(index);
+				}
+				verifyValue(parser, valueToken, objectContract.shape(index), path, verification);
+			}
+
+			path.setLength(length);
+		}
+
+		if (seen != null) {
+			for (int i = seen.nextClearBit(0); i < objectContract.size(); i = seen.nextClearBit(i + 1)) {
+				verification.mismatch("missing property " + path + "." + objectContract.name(i) + " for " + objectContract.getDtoClass().getName());
+			}
+		}
+	}
+
+	/**
+	 * Mismatches of one verification, bounded to the maximum number of reported mismatches
+	 */
+	private class Verification {
+		private final List<String> mismatches = new ArrayList<>();
+		private long count;
+
+		private void mismatch(String mismatch) {
+			if (count++ < maxMismatches) {
+				mismatches.add(mismatch);
+			}
+		}
+	}
+}
@@ -0,0 +1,277 @@
+package com.lotaris.junit.listeners;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.junit.runner.Description;
+import org.junit.runner.Result;
+import org.junit.runner.notification.Failure;
+import org.junit.runner.notification.RunListener;
+
+/**
+ * JUnit listener profiling each test: wall time, CPU time and allocated bytes of the
+ * thread running the test, and garbage collections happening during the test.
+ *
+ * <p>
+ * Once the run is finished, the tests are written sorted from the slowest to the fastest
+ * in a JSON and a CSV report, in the directory given by the {@value #DIRECTORY_PROPERTY}
+ * system property ({@value #DEFAULT_DIRECTORY} by default). The reports are suffixed with
+ * the surefire fork number, or the process identifier, so that parallel forks do not
+ * overwrite each other. The garbage collections are counted for the whole JVM, they are
+ * therefore only accurate when the tests of a fork run sequentially.
+ *
+ * <p>
+ * To use it with surefire:
+ *
+ * <p><pre>
+ * &lt;property&gt;
+ *   &lt;name&gt;listener&lt;/name&gt;
+ *   &lt;value&gt;com.lotaris.junit.listeners.ProfilingListener&lt;/value&gt;
+ * &lt;/property&gt;
+ * </pre>
+ *
+ * @author Laurent Prevost <laurent.prevost@lotaris.com>
+ */
+public class ProfilingListener extends RunListener {
+
+	/**
+	 * System property to change the directory of the reports
+	 */
+	public static final String DIRECTORY_PROPERTY = "profiling.directory";
+
+	/**
+	 * Default directory of the reports, relative to the working directory of the tests
+	 */
+	public static final String DEFAULT_DIRECTORY = "target/test-profiling";
+
+	/**
+	 * Prefix of the report files
+	 */
+	public static final String REPORT_PREFIX = "test-profile-";
+
+	private static final String CSV_HEADER = "class,method,status,wallMs,cpuMs,allocatedBytes,gcCount,gcMs";
+
+	private final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+	private final com.sun.management.ThreadMXBean allocationBean;
+	private final ConcurrentMap<Description, TestProfile> running = new ConcurrentHashMap<>();
+	private final List<TestProfile> finished = Collections.synchronizedList(new ArrayList<TestProfile>());
+
+	/**
+	 * Constructor
+	 */
+	public ProfilingListener() {
+		if (threadBean.isThreadCpuTimeSupported() && !threadBean.isThreadCpuTimeEnabled()) {
+			threadBean.setThreadCpuTimeEnabled(true);
+		}
+
+		com.sun.management.ThreadMXBean bean = null;
+		if (threadBean instanceof com.sun.management.ThreadMXBean) {
+			bean = (com.sun.management.ThreadMXBean) threadBean;
+			if (bean.isThreadAllocatedMemorySupported() && !bean.isThreadAllocatedMemoryEnabled()) {
+				bean.setThreadAllocatedMemoryEnabled(true);
+			}
+		}
+		allocationBean = bean;
+	}
+
+	@Override
+	public void testStarted(Description description) throws Exception {
+		final TestProfile profile = new TestProfile(description);
+		profile.thread = Thread.currentThread().getId();
+		profile.gcCount = -gcCount();
+		profile.gcTime = -gcTime();
+		profile.allocatedBytes = -allocatedBytes();
+		profile.cpuTime = -cpuTime();
+		profile.wallTime = -System.nanoTime();
+		running.put(description, profile);
+	}
+
+	@Override
+	public void testFailure(Failure failure) throws Exception {
+		final TestProfile profile = running.get(failure.getDescription());
+		if (profile != null) {
+			profile.status = "failed";
+		}
+	}
+
+	@Override
+	public void testAssumptionFailure(Failure failure) {
+		final TestProfile profile = running.get(failure.getDescription());
+		if (profile != null) {
+			profile.status = "skipped";
+		}
+	}
+
+	@Override
+	public void testFinished(Description description) throws Exception {
+		final TestProfile profile = running.remove(description);
+		if (profile == null) {
+			return;
+		}
+
+		profile.wallTime += System.nanoTime();
+
+		// The thread counters are only meaningful if the test finished on the thread it started on
+		if (profile.thread == Thread.currentThread().getId()) {
+			profile.cpuTime += cpuTime();
+			profile.allocatedBytes += allocatedBytes();
+		} else {
+			profile.cpuTime = -1;
+			profile.allocatedBytes = -1;
+		}
+
+		profile.gcTime += gcTime();
+		profile.gcCount += gcCount();
+		finished.add(profile);
+	}
+
+	@Override
+	public void testRunFinished(Result result) throws Exception {
+		final List<TestProfile> profiles;
+		synchronized (finished) {
+			profiles = new ArrayList<>(finished);
+		}
+
+		Collections.sort(profiles, new Comparator<TestProfile>() {
+			@Override
+			public int compare(TestProfile o1, TestProfile o2) {
+				return Long.compare(o2.wallTime, o1.wallTime);
+			}
+		});
+
+		final File directory = new File(System.getProperty(DIRECTORY_PROPERTY, DEFAULT_DIRECTORY));
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("Unable to create the directory of the test profiling reports " + directory);
+		}
+
+		final String suffix = reportSuffix();
+		writeJson(new File(directory, REPORT_PREFIX + suffix + ".json"), profiles);
+		writeCsv(new File(directory, REPORT_PREFIX + suffix + ".csv"), profiles);
+	}
+
+	private void writeJson(File file, List<TestProfile> profiles) throws IOException {
+		try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+			writer.write("[\n");
+			for (int i = 0; i < profiles.size(); i++) {
+				final TestProfile profile = profiles.get(i);
+				writer.write(String.format(Locale.ROOT,
+					"  {\"class\": %s, \"method\": %s, \"status\": \"%s\", \"wallMs\": %.3f, \"cpuMs\": %.3f, \"allocatedBytes\": %d, \"gcCount\": %d, \"gcMs\": %d}%s\n",
+					jsonString(profile.className), jsonString(profile.methodName), profile.status, millis(profile.wallTime), millis(profile.cpuTime),
+					profile.allocatedBytes, profile.gcCount, profile.gcTime, i < profiles.size() - 1 ? "," : ""));
+			}
+			writer.write("]\n");
+		}
+	}
+
+	private void writeCsv(File file, List<TestProfile> profiles) throws IOException {
+		try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+			writer.write(CSV_HEADER + "\n");
+			for (TestProfile profile : profiles) {
+				writer.write(String.format(Locale.ROOT, "%s,%s,%s,%.3f,%.3f,%d,%d,%d\n",
+					csvString(profile.className), csvString(profile.methodName), profile.status, millis(profile.wallTime), millis(profile.cpuTime),
+					profile.allocatedBytes, profile.gcCount, profile.gcTime));
+			}
+		}
+	}
+
+	private long cpuTime() {
+		return threadBean.isThreadCpuTimeEnabled() ? threadBean.getCurrentThreadCpuTime() : 0;
+	}
+
+	private long allocatedBytes() {
+		return allocationBean != null && allocationBean.isThreadAllocatedMemoryEnabled()
+			? allocationBean.getThreadAllocatedBytes(Thread.currentThread().getId()) : 0;
+	}
+
+	private static long gcCount() {
+		long count = 0;
+		for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+			count += Math.max(0, bean.getCollectionCount());
+		}
+		return count;
+	}
+
+	private static long gcTime() {
+		long time = 0;
+		for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+			time += Math.max(0, bean.getCollectionTime());
+		}
+		return time;
+	}
+
+	private static double millis(long nanos) {
+		return nanos < 0 ? -1 : nanos / 1e6;
+	}
+
+	private static String reportSuffix() {
+		final String forkNumber = System.getProperty("surefire.forkNumber");
+		if (forkNumber != null && !forkNumber.isEmpty()) {
+			return forkNumber;
+		}
+
+		// The name of the runtime is usually pid@hostname
+		final String runtimeName = ManagementFactory.getRuntimeMXBean().getName();
+		return runtimeName.contains("@") ? runtimeName.substring(0, runtimeName.indexOf('@')) : runtimeName.replaceAll("[^A-Za-z0-9]", "_");
+	}
+
+	private static String jsonString(String value) {
+		if (value == null) {
+			return "null";
+		}
+
+		final StringBuilder sb = new StringBuilder("\"");
+		for (char c : value.toCharArray()) {
+			if (c == '"' || c == '\\') {
+				sb.append('\\').append(c);
+			} else if (c < 0x20) {
+				sb.append(String.format("\\u%04x", (int) c));
+			} else {
+				sb.append(c);
+			}
+		}
+		return sb.append('"').toString();
+	}
+
+	private static String csvString(String value) {
+		if (value == null) {
+			return "";
+		} else if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
+			return "\"" + value.replace("\"", "\"\"") + "\"";
+		}
+		return value;
+	}
+
+	/**
+	 * Measurements of one test. The counters hold the negated start values while the test
+	 * is running, and the deltas once it is finished.
+	 */
+	private static class TestProfile {
+		private final String className;
+		private final String methodName;
+		private volatile String status = "passed";
+		private long thread;
+		private long wallTime;
+		private long cpuTime;
+		private long allocatedBytes;
+		private long gcCount;
+		private long gcTime;
+
+		private TestProfile(Description description) {
+			this.className = description.getClassName();
+			this.methodName = description.getMethodName();
+		}
+	}
+}
@@ -0,0 +1,129 @@
+package com.lotaris.junit.perf;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Callable;
+
+/**
+ * Measures the number of bytes allocated on the heap by the current thread, using the
+ * per-thread allocation counters of the HotSpot {@code com.sun.management.ThreadMXBean}.
+ *
+ * <p>
+ * Reading the counter allocates a little by itself, this overhead is calibrated once
+ * and subtracted from every measurement. The measured code is warmed up first so that
+ * the JIT compiler can compile it and remove the allocations that escape analysis can
+ * eliminate, which takes tens of thousands of iterations with the optimizing compiler of
+ * HotSpot. The results of the measured code are only compared to null, so that they do not
+ * escape because of the measurement itself.
+ *
+ * @author Laurent Prevost <laurent.prevost@lotaris.com>
+ */
+public final class AllocationMeter {
+
+	/**
+	 * Number of times the counter overhead is sampled during calibration
+	 */
+	private static final int CALIBRATION_SAMPLES = 100;
+
+	/**
+	 * Publishes the number of non-null results, so that the measured calls cannot be eliminated
+	 */
+	private static volatile long sink;
+
+	private static final com.sun.management.ThreadMXBean THREAD_BEAN;
+	private static final long OVERHEAD;
+
+	static {
+		com.sun.management.ThreadMXBean bean = null;
+		if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean) {
+			bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+			if (bean.isThreadAllocatedMemorySupported() && !bean.isThreadAllocatedMemoryEnabled()) {
+				bean.setThreadAllocatedMemoryEnabled(true);
+			}
+			if (!bean.isThreadAllocatedMemoryEnabled()) {
+				bean = null;
+			}
+		}
+
+		THREAD_BEAN = bean;
+		OVERHEAD = bean != null ? calibrate() : 0;
+	}
+
+	/**
+	 * @return true if the running JVM supports the measurement of the allocations per thread
+	 */
+	public static boolean isSupported() {
+		return THREAD_BEAN != null;
+	}
+
+	/**
+	 * Returns the total number of bytes allocated by the current thread since it started.
+	 *
+	 * @return the number of allocated bytes
+	 * @throws UnsupportedOperationException if the JVM does not support the measurement
+	 */
+	public static long getAllocatedBytes() {
+		if (THREAD_BEAN == null) {
+			throw new UnsupportedOperationException("The JVM does not support the measurement of the allocations per thread");
+		}
+		return THREAD_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	/**
+	 * Measures the number of bytes allocated by the specified code. The code is warmed up and
+	 * then measured several times. The smallest measurement is kept, which excludes the one-off
+	 * allocations like lazy initializations or class loading.
+	 *
+	 * @param call the code to measure
+	 * @param warmupIterations the number of iterations to run before measuring
+	 * @param measurementIterations the number of iterations in one measurement
+	 * @param repeats the number of measurements
+	 * @return the smallest number of bytes allocated during one measurement of all the measured iterations
+	 * @throws Exception if the measured code throws an exception
+	 */
+	public static long measureAllocatedBytes(Callable<?> call, int warmupIterations, int measurementIterations, int repeats) throws Exception {
+		Measurements.checkIterations(warmupIterations, measurementIterations);
+		if (repeats <= 0) {
+			throw new IllegalArgumentException("The number of repeats must be positive, was " + repeats);
+		}
+
+		// a local sink, unlike Measurements.consume, lets the results stay unescaped
+		long results = 0;
+		for (int i = 0; i < warmupIterations; i++) {
+			if (call.call() != null) {
+				results++;
+			}
+		}
+
+		long smallest = Long.MAX_VALUE;
+		for (int r = 0; r < repeats; r++) {
+			final long before = getAllocatedBytes();
+			for (int i = 0; i < measurementIterations; i++) {
+				if (call.call() != null) {
+					results++;
+				}
+			}
+			final long allocated = getAllocatedBytes() - before - OVERHEAD;
+			smallest = Math.min(smallest, Math.max(0, allocated));
+		}
+
+		sink = results;
+		return smallest;
+	}
+
+	/**
+	 * Measures the smallest number of bytes allocated between two consecutive reads of the counter.
+	 */
+	private static long calibrate() {
+		long overhead = Long.MAX_VALUE;
+		for (int i = 0; i < CALIBRATION_SAMPLES; i++) {
+			final long before = getAllocatedBytes();
+			overhead = Math.min(overhead, getAllocatedBytes() - before);
+		}
+		return overhead;
+	}
+
+	//<editor-fold defaultstate="collapsed" desc="Hidden Constructor">
+	private AllocationMeter() {
+	}
+	//</editor-fold>
+}
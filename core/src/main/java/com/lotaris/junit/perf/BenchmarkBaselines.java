@@ -0,0 +1,158 @@
+package com.lotaris.junit.perf;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Store of the benchmark baselines of a test class.
+ *
+ * <p>
+ * The baselines are saved in a properties file named after the test class, by default in
+ * {@value #DEFAULT_DIRECTORY} so that they are versioned with the tests. The directory can
+ * be changed with the {@value #DIRECTORY_PROPERTY} system property. The file declares the
+ * version of its format and lists the samples of each benchmark, sorted by name to keep
+ * the diffs readable:
+ *
+ * <p><pre>
+ * format=1
+ * serialize.samples=1520.5,1498.2,1502.7
+ * </pre>
+ *
+ * @author Laurent Prevost <laurent.prevost@lotaris.com>
+ */
+public class BenchmarkBaselines {
+
+	/**
+	 * System property to change the directory of the baselines
+	 */
+	public static final String DIRECTORY_PROPERTY = "benchmark.baselines.directory";
+
+	/**
+	 * Default directory of the baselines, relative to the working directory of the tests
+	 */
+	public static final String DEFAULT_DIRECTORY = "src/test/resources/benchmarks";
+
+	/**
+	 * Current version of the file format
+	 */
+	public static final int FORMAT_VERSION = 1;
+
+	private static final String FORMAT_KEY = "format";
+	private static final String SAMPLES_SUFFIX = ".samples";
+	private static final Pattern NAME_PATTERN = Pattern.compile("[A-Za-z0-9_\\-]+");
+
+	private final File file;
+	private final Map<String, double[]> baselines = new TreeMap<>();
+
+	/**
+	 * Loads the baselines of a test class, if any.
+	 *
+	 * @param testClassName the name of the test class
+	 * @throws IOException if the file cannot be read
+	 * @throws IllegalStateException if the file has an unsupported format version
+	 */
+	public BenchmarkBaselines(String testClassName) throws IOException {
+		this(new File(System.getProperty(DIRECTORY_PROPERTY, DEFAULT_DIRECTORY), testClassName + ".properties"));
+	}
+
+	/**
+	 * Loads the baselines from a file, if it exists.
+	 *
+	 * @param file the baselines file
+	 * @throws IOException if the file cannot be read
+	 * @throws IllegalStateException if the file has an unsupported format version
+	 */
+	public BenchmarkBaselines(File file) throws IOException {
+		this.file = file;
+
+		if (file.exists()) {
+			final Properties properties = new Properties();
+			try (InputStream in = new FileInputStream(file)) {
+				properties.load(in);
+			}
+
+			final String format = properties.getProperty(FORMAT_KEY);
+			if (!String.valueOf(FORMAT_VERSION).equals(format)) {
+				throw new IllegalStateException("Unsupported format version " + format + " of the benchmark baselines " + file);
+			}
+
+			for (String key : properties.stringPropertyNames()) {
+				if (key.endsWith(SAMPLES_SUFFIX)) {
+					baselines.put(key.substring(0, key.length() - SAMPLES_SUFFIX.length()), parse(properties.getProperty(key)));
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param name the name of the benchmark
+	 * @return the baseline samples of the benchmark, or null if it has no baseline
+	 */
+	public double[] get(String name) {
+		return baselines.get(name);
+	}
+
+	/**
+	 * Sets the baseline samples of a benchmark. The baselines must be {@link #save() saved} to be kept.
+	 *
+	 * @param name the name of the benchmark, made of letters, digits, underscores and dashes
+	 * @param samples the baseline samples
+	 * @throws IllegalArgumentException if the name is not valid
+	 */
+	public void put(String name, double[] samples) {
+		if (!NAME_PATTERN.matcher(name).matches()) {
+			throw new IllegalArgumentException("Invalid benchmark name " + name + ", only letters, digits, underscores and dashes are allowed");
+		}
+		baselines.put(name, samples.clone());
+	}
+
+	/**
+	 * Saves the baselines, creating the directory if necessary.
+	 *
+	 * @throws IOException if the file cannot be written
+	 */
+	public void save() throws IOException {
+		if (file.getParentFile() != null && !file.getParentFile().isDirectory() && !file.getParentFile().mkdirs()) {
+			throw new IOException("Unable to create the directory of the benchmark baselines " + file);
+		}
+
+		try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.ISO_8859_1)) {
+			writer.write(FORMAT_KEY + "=" + FORMAT_VERSION + "\n");
+			for (Map.Entry<String, double[]> baseline : baselines.entrySet()) {
+				writer.write(baseline.getKey() + SAMPLES_SUFFIX + "=" + format(baseline.getValue()) + "\n");
+			}
+		}
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	private static double[] parse(String value) {
+		final String[] parts = value.split(",");
+		final double[] samples = new double[parts.length];
+		for (int i = 0; i < parts.length; i++) {
+			samples[i] = Double.parseDouble(parts[i].trim());
+		}
+		return samples;
+	}
+
+	private static String format(double[] samples) {
+		final StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < samples.length; i++) {
+			sb.append(i > 0 ? "," : "").append(String.format(Locale.ROOT, "%.1f", samples[i]));
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,178 @@
+package com.lotaris.junit.perf;
+
+import java.util.concurrent.Callable;
+import org.junit.rules.TestRule;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+
+import static org.junit.Assert.fail;
+
+/**
+ * JUnit rule comparing benchmarks to their baselines stored in {@link BenchmarkBaselines}.
+ *
+ * <p>
+ * Each benchmark is measured as a series of samples, each sample being the mean duration in
+ * nanoseconds of one operation over a batch of operations. When a baseline exists, the
+ * {@link Bootstrap} confidence interval of the ratio between the current and the baseline
+ * means is computed, and the test fails only if the whole interval is above the tolerance,
+ * i.e. if the regression is statistically significant. When no baseline exists, or when the
+ * {@value #UPDATE_PROPERTY} system property is true, the samples are saved as the new
+ * baseline once the test succeeded.
+ *
+ * <p><pre>
+ * &#64;Rule
+ * public BenchmarkRule benchmark = new BenchmarkRule().tolerance(0.1);
+ *
+ * &#64;Test
+ * public void serializationShouldNotRegress() {
+ *   benchmark.measure("serialize", serializeCall);
+ * }
+ * </pre>
+ *
+ * @author Laurent Prevost <laurent.prevost@lotaris.com>
+ */
+public class BenchmarkRule implements TestRule {
+
+	/**
+	 * System property to force the update of the baselines
+	 */
+	public static final String UPDATE_PROPERTY = "benchmark.update";
+
+	private int warmupIterations = 1000;
+	private int samples = 30;
+	private int batchSize = 100;
+	private double tolerance = 0.05;
+	private double confidence = 0.99;
+
+	private BenchmarkBaselines baselines;
+	private boolean dirty;
+
+	//<editor-fold defaultstate="collapsed" desc="Configuration">
+	/**
+	 * @param warmupIterations the number of operations run before sampling, 1000 by default
+	 * @return this rule
+	 */
+	public BenchmarkRule warmupIterations(int warmupIterations) {
+		this.warmupIterations = warmupIterations;
+		return this;
+	}
+
+	/**
+	 * @param samples the number of samples, 30 by default
+	 * @return this rule
+	 */
+	public BenchmarkRule samples(int samples) {
+		this.samples = samples;
+		return this;
+	}
+
+	/**
+	 * @param batchSize the number of operations averaged in one sample, 100 by default
+	 * @return this rule
+	 * @throws IllegalArgumentException if the batch size is not positive
+	 */
+	public BenchmarkRule batchSize(int batchSize) {
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("The batch size must be positive, was " + batchSize);
+		}
+		this.batchSize = batchSize;
+		return this;
+	}
+
+	/**
+	 * @param tolerance the slowdown tolerated before considering a regression, 0.05 (5%) by default
+	 * @return this rule
+	 */
+	public BenchmarkRule tolerance(double tolerance) {
+		this.tolerance = tolerance;
+		return this;
+	}
+
+	/**
+	 * @param confidence the confidence level of the regression detection, 0.99 by default
+	 * @return this rule
+	 */
+	public BenchmarkRule confidence(double confidence) {
+		this.confidence = confidence;
+		return this;
+	}
+	//</editor-fold>
+
+	@Override
+	public Statement apply(final Statement base, final Description description) {
+		return new Statement() {
+			@Override
+			public void evaluate() throws Throwable {
+				baselines = new BenchmarkBaselines(description.getClassName());
+				dirty = false;
+
+				try {
+					base.evaluate();
+					if (dirty) {
+						baselines.save();
+					}
+				} finally {
+					baselines = null;
+				}
+			}
+		};
+	}
+
+	/**
+	 * Measures a benchmark and compares it to its baseline.
+	 *
+	 * @param name the name of the benchmark, unique in the test class
+	 * @param call the operation to measure
+	 * @return the mean duration of one operation in nanoseconds
+	 * @throws AssertionError if the benchmark regressed significantly
+	 */
+	public double measure(String name, Callable<?> call) {
+		if (baselines == null) {
+			throw new IllegalStateException("The benchmark rule can only measure while a test is running, is it annotated with @Rule?");
+		}
+
+		final double[] current = sample(call);
+		final double[] baseline = baselines.get(name);
+
+		if (baseline == null || Boolean.getBoolean(UPDATE_PROPERTY)) {
+			baselines.put(name, current);
+			dirty = true;
+		} else {
+			final double[] interval = Bootstrap.ratioOfMeansInterval(baseline, current, confidence, Bootstrap.DEFAULT_RESAMPLES);
+			if (interval[0] > 1 + tolerance) {
+				fail(String.format("Benchmark %s regressed from %s to %s per operation, slowdown between %+.1f%% and %+.1f%% with %.0f%% confidence (tolerance %.1f%%)",
+					name, LatencyHistogram.format(Bootstrap.mean(baseline)), LatencyHistogram.format(Bootstrap.mean(current)),
+					(interval[0] - 1) * 100, (interval[1] - 1) * 100, confidence * 100, tolerance * 100));
+			}
+		}
+
+		return Bootstrap.mean(current);
+	}
+
+	/**
+	 * Runs the warmup and collects the samples.
+	 */
+	private double[] sample(Callable<?> call) {
+		Measurements.checkIterations(warmupIterations, samples);
+
+		try {
+			for (int i = 0; i < warmupIterations; i++) {
+				Measurements.consume(call.call());
+			}
+
+			final double[] result = new double[samples];
+			for (int s = 0; s < samples; s++) {
+				final long start = System.nanoTime();
+				for (int i = 0; i < batchSize; i++) {
+					Measurements.consume(call.call());
+				}
+				result[s] = (double) (System.nanoTime() - start) / batchSize;
+			}
+			return result;
+		} catch (RuntimeException re) {
+			throw re;
+		} catch (Exception e) {
+			throw new AssertionError("The benchmarked call has thrown an exception: " + e, e);
+		}
+	}
+}
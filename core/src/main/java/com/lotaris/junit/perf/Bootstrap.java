@@ -0,0 +1,86 @@
+package com.lotaris.junit.perf;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Bootstrap confidence intervals to compare two series of benchmark samples.
+ *
+ * <p>
+ * Both series are resampled with replacement many times and the ratio of their means is
+ * computed for each resample. The percentiles of these ratios give the confidence interval
+ * of the ratio, without assuming that the samples are normally distributed, which they
+ * rarely are for latencies. The resampling is seeded so that the same samples always give
+ * the same interval.
+ *
+ * @author Laurent Prevost <laurent.prevost@lotaris.com>
+ */
+public final class Bootstrap {
+
+	/**
+	 * Default number of resamples
+	 */
+	public static final int DEFAULT_RESAMPLES = 10_000;
+
+	private static final long SEED = 0x5eed_cafeL;
+
+	/**
+	 * Computes the confidence interval of the ratio between the mean of the current samples
+	 * and the mean of the baseline samples. A ratio greater than 1 means that the current
+	 * samples are greater (i.e. slower when measuring durations).
+	 *
+	 * @param baseline the baseline samples
+	 * @param current the current samples
+	 * @param confidence the confidence level, between 0 and 1 exclusive (e.g. 0.99)
+	 * @param resamples the number of resamples
+	 * @return the lower and upper bounds of the interval
+	 * @throws IllegalArgumentException if a series is empty or the confidence is not between 0 and 1
+	 */
+	public static double[] ratioOfMeansInterval(double[] baseline, double[] current, double confidence, int resamples) {
+		if (baseline.length == 0 || current.length == 0) {
+			throw new IllegalArgumentException("The samples cannot be empty");
+		} else if (confidence <= 0 || confidence >= 1) {
+			throw new IllegalArgumentException("The confidence must be between 0 and 1 exclusive, was " + confidence);
+		}
+
+		final Random random = new Random(SEED);
+		final double[] ratios = new double[resamples];
+		for (int i = 0; i < resamples; i++) {
+			ratios[i] = resampledMean(current, random) / resampledMean(baseline, random);
+		}
+		Arrays.sort(ratios);
+
+		final double alpha = (1 - confidence) / 2;
+		return new double[] {
+			ratios[(int) Math.floor(alpha * (resamples - 1))],
+			ratios[(int) Math.ceil((1 - alpha) * (resamples - 1))]
+		};
+	}
+
+	/**
+	 * Computes the mean of the samples.
+	 *
+	 * @param samples the samples
+	 * @return the mean
+	 */
+	public static double mean(double[] samples) {
+		double sum = 0;
+		for (double sample : samples) {
+			sum += sample;
+		}
+		return sum / samples.length;
+	}
+
+	private static double resampledMean(double[] samples, Random random) {
+		double sum = 0;
+		for (int i = 0; i < samples.length; i++) {
+			sum += samples[random.nextInt(samples.length)];
+		}
+		return sum / samples.length;
+	}
+
+	//<editor-fold defaultstate="collapsed" desc="Hidden Constructor">
+	private Bootstrap() {
+	}
+	//</editor-fold>
+}
@@ -0,0 +1,172 @@
+package com.lotaris.junit.perf;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compact histogram of latencies expressed in nanoseconds.
+ *
+ * <p>
+ * Values are recorded in logarithmic buckets: each power of two is split in
+ * {@value #SUB_BUCKETS} linear sub-buckets, which bounds the relative error of the
+ * reported percentiles to about 3% while keeping the whole histogram in a fixed array
+ * of less than 2000 counters, whatever the number of recorded values. The minimum,
+ * the maximum and the mean are tracked exactly.
+ *
+ * <p>
+ * This class is not thread-safe. Record from one thread per histogram and
+ * {@link #add(LatencyHistogram) add} them together once done.
+ *
+ * @author Laurent Prevost <laurent.prevost@lotaris.com>
+ */
+public final class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 5;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKETS = SUB_BUCKETS + (63 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+	/**
+	 * Percentiles reported by {@link #toString()}
+	 */
+	private static final double[] REPORTED_PERCENTILES = {50, 90, 99, 99.9};
+
+	private final long[] counts = new long[BUCKETS];
+	private long count;
+	private long sum;
+	private long min = Long.MAX_VALUE;
+	private long max;
+
+	/**
+	 * Records a latency.
+	 *
+	 * @param nanos the latency in nanoseconds, negative values are recorded as zero
+	 */
+	public void record(long nanos) {
+		final long value = Math.max(0, nanos);
+		counts[index(value)]++;
+		count++;
+		sum += value;
+		min = Math.min(min, value);
+		max = Math.max(max, value);
+	}
+
+	/**
+	 * Adds all the latencies recorded by another histogram to this one.
+	 *
+	 * @param other the histogram to add
+	 */
+	public void add(LatencyHistogram other) {
+		for (int i = 0; i < BUCKETS; i++) {
+			counts[i] += other.counts[i];
+		}
+		count += other.count;
+		sum += other.sum;
+		min = Math.min(min, other.min);
+		max = Math.max(max, other.max);
+	}
+
+	/**
+	 * Returns the latency below which the specified percentage of the recorded latencies
+	 * fall. The returned value is the upper bound of the bucket containing the percentile,
+	 * capped to the maximum recorded latency.
+	 *
+	 * @param percentile the percentile, between 0 and 100
+	 * @return the latency in nanoseconds, or 0 if nothing has been recorded
+	 * @throws IllegalArgumentException if the percentile is not between 0 and 100
+	 */
+	public long getPercentile(double percentile) {
+		if (percentile < 0 || percentile > 100) {
+			throw new IllegalArgumentException("The percentile must be between 0 and 100, was " + percentile);
+		} else if (count == 0) {
+			return 0;
+		}
+
+		final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts[i];
+			if (seen >= rank) {
+				return Math.min(lowerBound(i + 1) - 1, max);
+			}
+		}
+
+		return max;
+	}
+
+	// <editor-fold defaultstate="collapsed" desc="Getters">
+	public long getCount() {
+		return count;
+	}
+
+	public long getMin() {
+		return count > 0 ? min : 0;
+	}
+
+	public long getMax() {
+		return max;
+	}
+
+	public double getMean() {
+		return count > 0 ? (double) sum / count : 0;
+	}
+	// </editor-fold>
+
+	/**
+	 * Formats a duration in nanoseconds with the most readable unit.
+	 *
+	 * @param nanos the duration in nanoseconds
+	 * @return the formatted duration
+	 */
+	public static String format(double nanos) {
+		if (nanos < TimeUnit.MICROSECONDS.toNanos(10)) {
+			return String.format("%.0fns", nanos);
+		} else if (nanos < TimeUnit.MILLISECONDS.toNanos(10)) {
+			return String.format("%.1fus", nanos / TimeUnit.MICROSECONDS.toNanos(1));
+		} else if (nanos < TimeUnit.SECONDS.toNanos(10)) {
+			return String.format("%.1fms", nanos / TimeUnit.MILLISECONDS.toNanos(1));
+		} else {
+			return String.format("%.1fs", nanos / TimeUnit.SECONDS.toNanos(1));
+		}
+	}
+
+	@Override
+	public String toString() {
+		final StringBuilder sb = new StringBuilder("count=").append(count)
+			.append(", min=").append(format(getMin()))
+			.append(", mean=").append(format(getMean()));
+
+		for (double percentile : REPORTED_PERCENTILES) {
+			sb.append(", p").append(percentile == Math.rint(percentile) ? String.valueOf((long) percentile) : String.valueOf(percentile))
+				.append('=').append(format(getPercentile(percentile)));
+		}
+
+		return sb.append(", max=").append(format(max)).toString();
+	}
+
+	/**
+	 * Computes the bucket of a value: values lower than {@value #SUB_BUCKETS} have their own
+	 * bucket, the others are bucketed by power of two and then linearly by their next bits.
+	 */
+	private static int index(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+
+		final int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+		return SUB_BUCKETS + shift * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+	}
+
+	/**
+	 * Computes the smallest value of a bucket, the reverse of {@link #index(long)}.
+	 */
+	private static long lowerBound(int index) {
+		if (index < SUB_BUCKETS) {
+			return index;
+		} else if (index >= BUCKETS) {
+			return Long.MAX_VALUE;
+		}
+
+		final int shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+		final int subBucket = (index - SUB_BUCKETS) % SUB_BUCKETS;
+		return (long) (SUB_BUCKETS + subBucket) << shift;
+	}
+}
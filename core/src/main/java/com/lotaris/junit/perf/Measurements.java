@@ -0,0 +1,78 @@
+package com.lotaris.junit.perf;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Measurement utilities for performance assertions.
+ *
+ * <p>
+ * The measured code is first run for a number of warmup iterations, which are not
+ * recorded, to give the JIT compiler a chance to compile the hot path. The results
+ * returned by the measured code are consumed so that it cannot be optimized away.
+ *
+ * @author Laurent Prevost <laurent.prevost@lotaris.com>
+ */
+public final class Measurements {
+
+	/**
+	 * Consumes the results of the measured code
+	 */
+	private static volatile Object sink;
+
+	/**
+	 * Measures the latency of each measured iteration of the specified code.
+	 *
+	 * @param call the code to measure
+	 * @param warmupIterations the number of iterations to run before measuring
+	 * @param measurementIterations the number of measured iterations
+	 * @return the histogram of the latencies of the measured iterations
+	 * @throws Exception if the measured code throws an exception
+	 */
+	public static LatencyHistogram measureLatency(Callable<?> call, int warmupIterations, int measurementIterations) throws Exception {
+		checkIterations(warmupIterations, measurementIterations);
+
+		for (int i = 0; i < warmupIterations; i++) {
+			consume(call.call());
+		}
+
+		final LatencyHistogram histogram = new LatencyHistogram();
+		for (int i = 0; i < measurementIterations; i++) {
+			final long start = System.nanoTime();
+			final Object result = call.call();
+			histogram.record(System.nanoTime() - start);
+			consume(result);
+		}
+
+		return histogram;
+	}
+
+	/**
+	 * Keeps a reference on a result of the measured code, so that the JIT compiler
+	 * cannot eliminate its computation.
+	 *
+	 * @param result the result to consume
+	 */
+	public static void consume(Object result) {
+		sink = result;
+	}
+
+	/**
+	 * Validates the number of iterations of a measurement.
+	 *
+	 * @param warmupIterations the number of warmup iterations, may be zero
+	 * @param measurementIterations the number of measured iterations, must be positive
+	 * @throws IllegalArgumentException if the number of iterations are not valid
+	 */
+	public static void checkIterations(int warmupIterations, int measurementIterations) {
+		if (warmupIterations < 0) {
+			throw new IllegalArgumentException("The number of warmup iterations cannot be negative, was " + warmupIterations);
+		} else if (measurementIterations <= 0) {
+			throw new IllegalArgumentException("The number of measurement iterations must be positive, was " + measurementIterations);
+		}
+	}
+
+	//<editor-fold defaultstate="collapsed" desc="Hidden Constructor">
+	private Measurements() {
+	}
+	//</editor-fold>
+}
@@ -0,0 +1,236 @@
+package com.lotaris.junit.sharding;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Shard of a check run over many classes, typically the entity contract checks of {@link com.lotaris.junit.Assert},
+ * so that the forks of a test run each check a balanced and deterministic subset of the classes.
+ *
+ * <p>
+ * The classes are assigned to the shards by a {@link ShardPlan} weighted with the durations
+ * measured in a previous run, stored in {@link ShardTimings}. As every fork computes the
+ * same plan, each class is checked by exactly one fork without any coordination.
+ *
+ * <p>
+ * Surefire distributes whole test classes to its forks, so the simplest setup is one small
+ * test class per shard, the forks picking them up as they become free:
+ *
+ * <p><pre>
+ * public class EntityContractShard0Test {
+ *   &#64;Test
+ *   public void entitiesShouldHonorTheirContract() {
+ *     Shard.of(0, 4).check("entities", Entities.all(), new Shard.ClassCheck() {
+ *       &#64;Override
+ *       public void check(Class&lt;?&gt; entity) throws Exception {
+ *         Assert.assertIdColumn(entity);
+ *         Assert.assertNotNullColumns(entity, ...);
+ *       }
+ *     });
+ *   }
+ * }
+ * </pre>
+ *
+ * <p>
+ * Alternatively, a single test class can use {@link #current()}, the shard being given by
+ * the {@value #INDEX_PROPERTY} and {@value #COUNT_PROPERTY} system properties of each CI job
+ * or surefire execution. Each shard must then be run by its own job or execution.
+ *
+ * <p>
+ * The timings are refreshed by running the checks with the {@value #UPDATE_PROPERTY}
+ * system property set to true; each shard then merges the durations of its classes into
+ * the {@link ShardTimings#updates(java.lang.String) measured timings}, to be promoted to the
+ * versioned timings once the run is over. The plan is only computed from the versioned
+ * timings, which do not change during a run. Running without timings, or with new classes,
+ * still works: the unknown classes weigh the mean of the known ones.
+ *
+ * @author Laurent Prevost <laurent.prevost@lotaris.com>
+ */
+public final class Shard {
+
+	/**
+	 * System property giving the index of the current shard, starting at 0
+	 */
+	public static final String INDEX_PROPERTY = "shard.index";
+
+	/**
+	 * System property giving the number of shards
+	 */
+	public static final String COUNT_PROPERTY = "shard.count";
+
+	/**
+	 * System property to save the measured durations as the timings of the next runs
+	 */
+	public static final String UPDATE_PROPERTY = "shard.update";
+
+	/**
+	 * The plans computed in this JVM, by check name and shard count
+	 */
+	private static final ConcurrentMap<String, ShardPlan> PLANS = new ConcurrentHashMap<>();
+
+	/**
+	 * A check of a single class, failing with an assertion error or any exception.
+	 */
+	public interface ClassCheck {
+		/**
+		 * @param cl the class to check
+		 * @throws Exception if the check cannot be performed
+		 */
+		void check(Class<?> cl) throws Exception;
+	}
+
+	private final int index;
+	private final int count;
+
+	private Shard(int index, int count) {
+		if (count < 1) {
+			throw new IllegalArgumentException("The number of shards must be positive, got " + count);
+		}
+		if (index < 0 || index >= count) {
+			throw new IllegalArgumentException("The shard index must be between 0 and " + (count - 1) + ", got " + index);
+		}
+		this.index = index;
+		this.count = count;
+	}
+
+	/**
+	 * @param index the index of the shard, starting at 0
+	 * @param count the number of shards
+	 * @return the shard
+	 * @throws IllegalArgumentException if the index is not within the shards
+	 */
+	public static Shard of(int index, int count) {
+		return new Shard(index, count);
+	}
+
+	/**
+	 * Returns the shard configured by the {@value #INDEX_PROPERTY} and {@value #COUNT_PROPERTY}
+	 * system properties. Without count, the only shard is returned. The index is required as
+	 * soon as there are several shards: a test class runs in a single fork, so deriving the
+	 * index from the fork would silently leave the other shards unchecked.
+	 *
+	 * @return the current shard
+	 * @throws IllegalArgumentException if the properties are not valid, or if the index is missing
+	 */
+	public static Shard current() {
+		final int count = Integer.parseInt(System.getProperty(COUNT_PROPERTY, "1"));
+
+		final String index = System.getProperty(INDEX_PROPERTY);
+		if (index == null && count > 1) {
+			throw new IllegalArgumentException("The " + INDEX_PROPERTY + " system property is required with " + COUNT_PROPERTY + "=" + count);
+		}
+
+		return new Shard(index != null ? Integer.parseInt(index) : 0, count);
+	}
+
+	/**
+	 * Selects the classes of this shard.
+	 *
+	 * @param name the name of the check, naming its timings files
+	 * @param classes all the classes to check, in any order
+	 * @return the classes of this shard, sorted by name
+	 * @throws IOException if the timings cannot be read
+	 */
+	public List<Class<?>> select(String name, Collection<? extends Class<?>> classes) throws IOException {
+		final Map<String, Class<?>> byName = new HashMap<>(classes.size() * 2);
+		for (Class<?> cl : classes) {
+			byName.put(cl.getName(), cl);
+		}
+
+		final ShardPlan plan = plan(name, byName.keySet());
+
+		final List<Class<?>> selected = new ArrayList<>();
+		for (String unit : plan.getUnits(index)) {
+			selected.add(byName.get(unit));
+		}
+		return selected;
+	}
+
+	/**
+	 * Runs a check over the classes of this shard and fails once with the failures of all
+	 * the classes, rather than stopping at the first one. The failure of each class is
+	 * attached as a suppressed exception, with its stack trace.
+	 *
+	 * @param name the name of the check, naming its timings files
+	 * @param classes all the classes to check, in any order
+	 * @param check the check of a class
+	 * @throws IOException if the timings cannot be read or saved
+	 */
+	public void check(String name, Collection<? extends Class<?>> classes, ClassCheck check) throws IOException {
+		final List<Class<?>> selected = select(name, classes);
+		final ShardTimings timings = Boolean.getBoolean(UPDATE_PROPERTY) ? ShardTimings.updates(name) : null;
+
+		final List<String> failures = new ArrayList<>();
+		final List<Throwable> causes = new ArrayList<>();
+		for (Class<?> cl : selected) {
+			final long start = System.nanoTime();
+			try {
+				check.check(cl);
+			} catch (AssertionError | Exception e) {
+				failures.add(cl.getName() + ": " + e);
+				causes.add(e);
+			}
+
+			if (timings != null) {
+				timings.put(cl.getName(), (System.nanoTime() - start) / 1e6);
+			}
+		}
+
+		if (timings != null) {
+			timings.save();
+		}
+
+		if (!failures.isEmpty()) {
+			final StringBuilder sb = new StringBuilder();
+			sb.append(failures.size()).append(" of the ").append(selected.size()).append(" classes of ").append(this).append(" failed the check ").append(name).append(":");
+			for (String failure : failures) {
+				sb.append("\n- ").append(failure);
+			}
+
+			final AssertionError error = new AssertionError(sb.toString());
+			for (Throwable cause : causes) {
+				error.addSuppressed(cause);
+			}
+			throw error;
+		}
+	}
+
+	public int getIndex() {
+		return index;
+	}
+
+	public int getCount() {
+		return count;
+	}
+
+	private ShardPlan plan(String name, Collection<String> units) throws IOException {
+		final String key = name + "/" + count;
+
+		ShardPlan plan = PLANS.get(key);
+		if (plan == null || plan.size() != units.size() || !containsAll(plan, units)) {
+			plan = ShardPlan.of(units, new ShardTimings(name).getTimings(), count);
+			PLANS.put(key, plan);
+		}
+		return plan;
+	}
+
+	private static boolean containsAll(ShardPlan plan, Collection<String> units) {
+		for (String unit : units) {
+			if (plan.getShard(unit) < 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return "shard " + (index + 1) + "/" + count;
+	}
+}
@@ -0,0 +1,182 @@
+package com.lotaris.junit.sharding;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+
+/**
+ * Deterministic assignment of named units of work to shards, balanced by their weights.
+ *
+ * <p>
+ * The units are assigned from the heaviest to the lightest to the least loaded shard (the
+ * longest processing time first heuristic), which keeps every shard within a third of the
+ * optimal makespan. The units of equal weight are ordered by the FNV-1a hash of their name,
+ * so that they are spread over the shards rather than grouped by package, and then by
+ * name. The plan only depends on the names, the weights and the number of shards: every
+ * fork computes the same plan, whatever the order in which it lists the units.
+ *
+ * <p>
+ * The units without weight, typically new classes, weigh the mean of the known weights,
+ * or 1 if no weight is known.
+ *
+ * @author Laurent Prevost <laurent.prevost@lotaris.com>
+ */
+public final class ShardPlan {
+
+	private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	private final Map<String, Integer> shards;
+	private final List<List<String>> names;
+	private final double[] weights;
+
+	private ShardPlan(Map<String, Integer> shards, List<List<String>> names, double[] weights) {
+		this.shards = shards;
+		this.names = names;
+		this.weights = weights;
+	}
+
+	/**
+	 * Computes the plan of the specified units.
+	 *
+	 * @param units the names of the units, duplicates being ignored
+	 * @param knownWeights the weights of the units, e.g. their duration in the previous run
+	 * @param shardCount the number of shards
+	 * @return the plan
+	 * @throws IllegalArgumentException if the number of shards is not positive
+	 */
+	public static ShardPlan of(Collection<String> units, Map<String, Double> knownWeights, int shardCount) {
+		if (shardCount < 1) {
+			throw new IllegalArgumentException("The number of shards must be positive, got " + shardCount);
+		}
+
+		final List<String> sorted = new ArrayList<>(new TreeSet<>(units));
+
+		double known = 0;
+		int knownCount = 0;
+		for (String unit : sorted) {
+			final Double weight = knownWeights.get(unit);
+			if (weight != null) {
+				known += weight;
+				knownCount++;
+			}
+		}
+		final double defaultWeight = knownCount > 0 ? known / knownCount : 1;
+
+		final Map<String, Double> unitWeights = new HashMap<>(sorted.size() * 2);
+		final Map<String, Long> hashes = new HashMap<>(sorted.size() * 2);
+		for (String unit : sorted) {
+			final Double weight = knownWeights.get(unit);
+			unitWeights.put(unit, weight != null ? weight : defaultWeight);
+			hashes.put(unit, fnv1a(unit));
+		}
+
+		Collections.sort(sorted, new Comparator<String>() {
+			@Override
+			public int compare(String o1, String o2) {
+				int result = Double.compare(unitWeights.get(o2), unitWeights.get(o1));
+				if (result == 0) {
+					result = Long.compare(hashes.get(o1), hashes.get(o2));
+				}
+				return result != 0 ? result : o1.compareTo(o2);
+			}
+		});
+
+		final double[] loads = new double[shardCount];
+		final PriorityQueue<Integer> leastLoaded = new PriorityQueue<>(shardCount, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer o1, Integer o2) {
+				final int result = Double.compare(loads[o1], loads[o2]);
+				return result != 0 ? result : o1.compareTo(o2);
+			}
+		});
+		final List<List<String>> names = new ArrayList<>(shardCount);
+		for (int i = 0; i < shardCount; i++) {
+			leastLoaded.add(i);
+			names.add(new ArrayList<String>());
+		}
+
+		final Map<String, Integer> shards = new HashMap<>(sorted.size() * 2);
+		for (String unit : sorted) {
+			final int shard = leastLoaded.poll();
+			shards.put(unit, shard);
+			names.get(shard).add(unit);
+			loads[shard] += unitWeights.get(unit);
+			leastLoaded.add(shard);
+		}
+
+		for (int i = 0; i < shardCount; i++) {
+			Collections.sort(names.get(i));
+			names.set(i, Collections.unmodifiableList(names.get(i)));
+		}
+
+		return new ShardPlan(shards, Collections.unmodifiableList(names), loads);
+	}
+
+	/**
+	 * @param unit the name of a unit
+	 * @return the index of the shard of the unit, starting at 0, or -1 if the unit is not part of the plan
+	 */
+	public int getShard(String unit) {
+		final Integer shard = shards.get(unit);
+		return shard != null ? shard : -1;
+	}
+
+	/**
+	 * @param shard the index of a shard, starting at 0
+	 * @return the names of the units of the shard, sorted
+	 */
+	public List<String> getUnits(int shard) {
+		return names.get(shard);
+	}
+
+	/**
+	 * @param shard the index of a shard, starting at 0
+	 * @return the sum of the weights of the units of the shard
+	 */
+	public double getWeight(int shard) {
+		return weights[shard];
+	}
+
+	public int getShardCount() {
+		return weights.length;
+	}
+
+	/**
+	 * @return the number of units of the plan
+	 */
+	public int size() {
+		return shards.size();
+	}
+
+	/**
+	 * @param value the value to hash
+	 * @return the 64 bits FNV-1a hash of the UTF-8 bytes of the value, stable across JVMs
+	 */
+	static long fnv1a(String value) {
+		long hash = FNV_OFFSET_BASIS;
+		for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+			hash ^= b & 0xff;
+			hash *= FNV_PRIME;
+		}
+		return hash;
+	}
+
+	@Override
+	public String toString() {
+		final StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < weights.length; i++) {
+			sb.append(i > 0 ? ", " : "").append(String.format(Locale.ROOT, "shard %d: %d units weighing %.1f", i, names.get(i).size(), weights[i]));
+		}
+		return sb.toString();
+	}
+
+}
@@ -0,0 +1,210 @@
+package com.lotaris.junit.sharding;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Store of the timings of the units of a sharded check, used as weights to balance the shards.
+ *
+ * <p>
+ * The timings are saved in a properties file named after the check, by default in
+ * {@value #DEFAULT_DIRECTORY} so that they are versioned with the tests. The directory can
+ * be changed with the {@value #DIRECTORY_PROPERTY} system property. The file declares the
+ * version of its format and lists the duration of each unit in milliseconds, sorted by name
+ * to keep the diffs readable:
+ *
+ * <p><pre>
+ * format=1
+ * com.example.model.Customer=12.4
+ * com.example.model.Order=48.0
+ * </pre>
+ *
+ * <p>
+ * The timings measured by a run are not saved over the versioned ones, which every shard
+ * must read unchanged to compute the same plan, but in {@value #DEFAULT_UPDATE_DIRECTORY},
+ * or in the directory given by the {@value #UPDATE_DIRECTORY_PROPERTY} system property.
+ * They are promoted by copying the files to the directory of the versioned timings:
+ *
+ * <p><pre>
+ * mvn test -Dshard.update=true &amp;&amp; cp target/shards/*.properties src/test/resources/shards/
+ * </pre>
+ *
+ * @author Laurent Prevost <laurent.prevost@lotaris.com>
+ */
+public class ShardTimings {
+
+	/**
+	 * System property to change the directory of the timings
+	 */
+	public static final String DIRECTORY_PROPERTY = "shard.timings.directory";
+
+	/**
+	 * Default directory of the timings, relative to the working directory of the tests
+	 */
+	public static final String DEFAULT_DIRECTORY = "src/test/resources/shards";
+
+	/**
+	 * System property to change the directory of the measured timings
+	 */
+	public static final String UPDATE_DIRECTORY_PROPERTY = "shard.timings.updateDirectory";
+
+	/**
+	 * Default directory of the measured timings, relative to the working directory of the tests
+	 */
+	public static final String DEFAULT_UPDATE_DIRECTORY = "target/shards";
+
+	/**
+	 * Current version of the file format
+	 */
+	public static final int FORMAT_VERSION = 1;
+
+	private static final String FORMAT_KEY = "format";
+
+	/**
+	 * Serializes the saves of the threads of this JVM
+	 */
+	private static final Object LOCK = new Object();
+
+	private final File file;
+	private final Map<String, Double> timings = new TreeMap<>();
+
+	/**
+	 * Loads the timings of a check, if any.
+	 *
+	 * @param name the name of the check
+	 * @throws IOException if the file cannot be read
+	 * @throws IllegalStateException if the file has an unsupported format version
+	 */
+	public ShardTimings(String name) throws IOException {
+		this(new File(System.getProperty(DIRECTORY_PROPERTY, DEFAULT_DIRECTORY), name + ".properties"));
+	}
+
+	/**
+	 * Loads the timings of a check measured by the previous runs and not promoted yet, if any.
+	 *
+	 * @param name the name of the check
+	 * @return the measured timings
+	 * @throws IOException if the file cannot be read
+	 * @throws IllegalStateException if the file has an unsupported format version
+	 */
+	public static ShardTimings updates(String name) throws IOException {
+		return new ShardTimings(new File(System.getProperty(UPDATE_DIRECTORY_PROPERTY, DEFAULT_UPDATE_DIRECTORY), name + ".properties"));
+	}
+
+	/**
+	 * Loads the timings from a file, if it exists.
+	 *
+	 * @param file the timings file
+	 * @throws IOException if the file cannot be read
+	 * @throws IllegalStateException if the file has an unsupported format version
+	 */
+	public ShardTimings(File file) throws IOException {
+		this.file = file;
+		load(file, timings);
+	}
+
+	/**
+	 * @return the durations of the units in milliseconds, by name
+	 */
+	public Map<String, Double> getTimings() {
+		return Collections.unmodifiableMap(timings);
+	}
+
+	/**
+	 * Sets the duration of a unit. The timings must be {@link #save() saved} to be kept.
+	 *
+	 * @param unit the name of the unit
+	 * @param millis the duration of the unit in milliseconds
+	 */
+	public void put(String unit, double millis) {
+		timings.put(unit, millis);
+	}
+
+	/**
+	 * Saves the timings, creating the directory if necessary. The timings saved in the
+	 * meantime, e.g. by another shard, are kept unless they are overridden.
+	 *
+	 * <p>
+	 * The forks saving the same timings are serialized by a lock file in the temporary
+	 * directory, and the file is replaced atomically so that it is never read half written.
+	 *
+	 * @throws IOException if the file cannot be written
+	 */
+	public void save() throws IOException {
+		final File directory = file.getAbsoluteFile().getParentFile();
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("Unable to create the directory of the shard timings " + file);
+		}
+
+		final File lockFile = new File(System.getProperty("java.io.tmpdir"), "shard-timings-" + Integer.toHexString(file.getAbsolutePath().hashCode()) + ".lock");
+
+		// file locks are held by the whole JVM, the threads of a JVM must be serialized separately
+		synchronized (LOCK) {
+			try (FileChannel channel = FileChannel.open(lockFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+				final FileLock lock = channel.lock();
+				try {
+					final Map<String, Double> merged = new TreeMap<>();
+					load(file, merged);
+					merged.putAll(timings);
+
+					final File temporary = File.createTempFile(file.getName(), ".tmp", directory);
+					try {
+						try (Writer writer = new OutputStreamWriter(new FileOutputStream(temporary), StandardCharsets.ISO_8859_1)) {
+							writer.write(FORMAT_KEY + "=" + FORMAT_VERSION + "\n");
+							for (Map.Entry<String, Double> timing : merged.entrySet()) {
+								writer.write(timing.getKey() + "=" + String.format(Locale.ROOT, "%.1f", timing.getValue()) + "\n");
+							}
+						}
+						Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+					} finally {
+						Files.deleteIfExists(temporary.toPath());
+					}
+				} finally {
+					lock.release();
+				}
+			}
+		}
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	private static void load(File file, Map<String, Double> timings) throws IOException {
+		if (!file.exists()) {
+			return;
+		}
+
+		final Properties properties = new Properties();
+		try (InputStream in = new FileInputStream(file)) {
+			properties.load(in);
+		}
+
+		final String format = properties.getProperty(FORMAT_KEY);
+		if (!String.valueOf(FORMAT_VERSION).equals(format)) {
+			throw new IllegalStateException("Unsupported format version " + format + " of the shard timings " + file);
+		}
+
+		for (String key : properties.stringPropertyNames()) {
+			if (!FORMAT_KEY.equals(key)) {
+				timings.put(key, Double.parseDouble(properties.getProperty(key).trim()));
+			}
+		}
+	}
+}
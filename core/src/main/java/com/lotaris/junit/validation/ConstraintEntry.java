@@ -0,0 +1,74 @@
+package com.lotaris.junit.validation;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * Bean Validation constraint declared on a field, with its groups and payload.
+ *
+ * @author Laurent Prevost <laurent.prevost@lotaris.com>
+ */
+public final class ConstraintEntry {
+
+	private final Field field;
+	private final Annotation constraint;
+	private final Class[] groups;
+	private final Class[] payload;
+
+	ConstraintEntry(Field field, Annotation constraint) {
+		this.field = field;
+		this.constraint = constraint;
+		this.groups = readClasses(constraint, "groups");
+		this.payload = readClasses(constraint, "payload");
+	}
+
+	/**
+	 * Returns another annotation of the constrained field, e.g. its Column annotation.
+	 *
+	 * @param <T> the annotation type
+	 * @param annotationClass the annotation class
+	 * @return the annotation, or null if the field has no such annotation
+	 */
+	public <T extends Annotation> T getFieldAnnotation(Class<T> annotationClass) {
+		return field.getAnnotation(annotationClass);
+	}
+
+	// <editor-fold defaultstate="collapsed" desc="Getters">
+	public Class getDeclaringClass() {
+		return field.getDeclaringClass();
+	}
+
+	public Field getField() {
+		return field;
+	}
+
+	public Annotation getConstraint() {
+		return constraint;
+	}
+
+	public Class[] getGroups() {
+		return groups.clone();
+	}
+
+	public Class[] getPayload() {
+		return payload.clone();
+	}
+	// </editor-fold>
+
+	@Override
+	public String toString() {
+		return "@" + constraint.annotationType().getSimpleName() + " on " + field.getDeclaringClass().getName() + "." + field.getName();
+	}
+
+	/**
+	 * Reads a class array attribute that every constraint annotation must declare.
+	 */
+	private static Class[] readClasses(Annotation constraint, String attribute) {
+		try {
+			return (Class[]) constraint.annotationType().getMethod(attribute).invoke(constraint);
+		} catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+			throw new IllegalStateException("The constraint " + constraint.annotationType().getName() + " has no valid " + attribute + " attribute", e);
+		}
+	}
+}
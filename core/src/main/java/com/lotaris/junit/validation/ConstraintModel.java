@@ -0,0 +1,246 @@
+package com.lotaris.junit.validation;
+
+import com.lotaris.junit.ClassUtils;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.validation.Constraint;
+
+/**
+ * Model of all the Bean Validation constraints declared on the fields of the classes of a
+ * package, indexed by class and by constraint type.
+ *
+ * <p>
+ * Models are built once per package and cached, so the reflection is only done once per
+ * test JVM. The rules are then verified on the whole model, one task per class, in parallel
+ * on a pool of daemon threads shared by all the models when the model has many classes.
+ *
+ * <p><pre>
+ * List&lt;String&gt; violations = ConstraintModel.of("com.lotaris.entities").check(ConstraintRule.sizeMatchesColumnLength());
+ * </pre>
+ *
+ * @author Laurent Prevost <laurent.prevost@lotaris.com>
+ */
+public final class ConstraintModel {
+
+	private static final ConcurrentMap<String, ConstraintModel> MODELS = new ConcurrentHashMap<>();
+
+	/**
+	 * Number of classes below which the rules are verified in the calling thread
+	 */
+	private static final int PARALLEL_THRESHOLD = 32;
+
+	private final List<ConstraintEntry> entries;
+	private final Map<Class, List<ConstraintEntry>> byClass;
+	private final Map<Class<? extends Annotation>, List<ConstraintEntry>> byType;
+
+	private ConstraintModel(List<Class> classes) {
+		final List<ConstraintEntry> allEntries = new ArrayList<>();
+		final Map<Class, List<ConstraintEntry>> entriesByClass = new LinkedHashMap<>();
+		final Map<Class<? extends Annotation>, List<ConstraintEntry>> entriesByType = new LinkedHashMap<>();
+
+		for (Class c : classes) {
+			final List<ConstraintEntry> classEntries = new ArrayList<>();
+			for (Field field : c.getDeclaredFields()) {
+				for (Annotation annotation : field.getAnnotations()) {
+					for (Annotation constraint : constraints(annotation)) {
+						final ConstraintEntry entry = new ConstraintEntry(field, constraint);
+						classEntries.add(entry);
+
+						List<ConstraintEntry> typeEntries = entriesByType.get(constraint.annotationType());
+						if (typeEntries == null) {
+							typeEntries = new ArrayList<>();
+							entriesByType.put(constraint.annotationType(), typeEntries);
+						}
+						typeEntries.add(entry);
+					}
+				}
+			}
+
+			if (!classEntries.isEmpty()) {
+				allEntries.addAll(classEntries);
+				entriesByClass.put(c, Collections.unmodifiableList(classEntries));
+			}
+		}
+
+		for (Map.Entry<Class<? extends Annotation>, List<ConstraintEntry>> typeEntries : entriesByType.entrySet()) {
+			typeEntries.setValue(Collections.unmodifiableList(typeEntries.getValue()));
+		}
+
+		entries = Collections.unmodifiableList(allEntries);
+		byClass = Collections.unmodifiableMap(entriesByClass);
+		byType = Collections.unmodifiableMap(entriesByType);
+	}
+
+	/**
+	 * Returns the cached model of a package and of its sub-packages, building it on first use.
+	 *
+	 * @param packageName the name of the package
+	 * @return the model of the package
+	 */
+	public static ConstraintModel of(String packageName) {
+		ConstraintModel model = MODELS.get(packageName);
+		if (model == null) {
+			model = new ConstraintModel(ClassUtils.getClasses(packageName));
+			final ConstraintModel existing = MODELS.putIfAbsent(packageName, model);
+			if (existing != null) {
+				model = existing;
+			}
+		}
+		return model;
+	}
+
+	/**
+	 * Builds the model of the specified classes, without caching it.
+	 *
+	 * @param classes the classes
+	 * @return the model of the classes
+	 */
+	public static ConstraintModel of(List<Class> classes) {
+		return new ConstraintModel(classes);
+	}
+
+	/**
+	 * Verifies the rules on all the constraints of the model, in parallel if the model has
+	 * many classes.
+	 *
+	 * @param rules the rules to verify
+	 * @return the violations, grouped by class in a stable order
+	 */
+	public List<String> check(final ConstraintRule... rules) {
+		final List<String> violations = new ArrayList<>();
+
+		if (byClass.size() < PARALLEL_THRESHOLD || Runtime.getRuntime().availableProcessors() == 1) {
+			for (List<ConstraintEntry> classEntries : byClass.values()) {
+				violations.addAll(check(classEntries, rules));
+			}
+			return violations;
+		}
+
+		final List<Future<List<String>>> futures = new ArrayList<>(byClass.size());
+		for (final List<ConstraintEntry> classEntries : byClass.values()) {
+			futures.add(Executor.SERVICE.submit(new Callable<List<String>>() {
+				@Override
+				public List<String> call() {
+					return check(classEntries, rules);
+				}
+			}));
+		}
+
+		try {
+			for (Future<List<String>> future : futures) {
+				violations.addAll(future.get());
+			}
+			return violations;
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while checking the constraint rules", ie);
+		} catch (ExecutionException ee) {
+			throw new IllegalStateException("Unable to check the constraint rules", ee.getCause());
+		} finally {
+			for (Future<List<String>> future : futures) {
+				future.cancel(true);
+			}
+		}
+	}
+
+	private List<String> check(List<ConstraintEntry> classEntries, ConstraintRule... rules) {
+		final List<String> violations = new ArrayList<>();
+		for (ConstraintEntry entry : classEntries) {
+			for (ConstraintRule rule : rules) {
+				final String violation = rule.check(entry, this);
+				if (violation != null) {
+					violations.add(rule.getDescription() + ": " + violation);
+				}
+			}
+		}
+		return violations;
+	}
+
+	// <editor-fold defaultstate="collapsed" desc="Getters">
+	/**
+	 * @return all the constraints of the model
+	 */
+	public List<ConstraintEntry> getEntries() {
+		return entries;
+	}
+
+	/**
+	 * @param c the class
+	 * @return the constraints declared on the fields of the class
+	 */
+	public List<ConstraintEntry> getEntries(Class c) {
+		final List<ConstraintEntry> classEntries = byClass.get(c);
+		return classEntries != null ? classEntries : Collections.<ConstraintEntry>emptyList();
+	}
+
+	/**
+	 * @param constraintType the constraint annotation class (e.g. Size.class)
+	 * @return the constraints of the type
+	 */
+	public List<ConstraintEntry> getEntriesOfType(Class<? extends Annotation> constraintType) {
+		final List<ConstraintEntry> typeEntries = byType.get(constraintType);
+		return typeEntries != null ? typeEntries : Collections.<ConstraintEntry>emptyList();
+	}
+	// </editor-fold>
+
+	/**
+	 * Returns the constraints of an annotation: the annotation itself if it is a constraint, the
+	 * constraints it contains if it is a constraint list (e.g. Size.List), nothing otherwise.
+	 */
+	private static List<Annotation> constraints(Annotation annotation) {
+		if (annotation.annotationType().isAnnotationPresent(Constraint.class)) {
+			return Collections.singletonList(annotation);
+		}
+
+		try {
+			final Method value = annotation.annotationType().getMethod("value");
+			final Class<?> componentType = value.getReturnType().getComponentType();
+			if (componentType != null && componentType.isAnnotation() && componentType.isAnnotationPresent(Constraint.class)) {
+				final List<Annotation> constraints = new ArrayList<>();
+				for (Object constraint : (Object[]) value.invoke(annotation)) {
+					constraints.add((Annotation) constraint);
+				}
+				return constraints;
+			}
+		} catch (NoSuchMethodException nsme) {
+			// Not a constraint list
+		} catch (IllegalAccessException | InvocationTargetException e) {
+			throw new IllegalStateException("Unable to read the constraints of " + annotation, e);
+		}
+
+		return Collections.emptyList();
+	}
+
+	/**
+	 * Pool verifying the rules, created on first use and shared by all the models. Its
+	 * threads are daemons, so the pool never needs to be shut down.
+	 */
+	private static final class Executor {
+		private static final ExecutorService SERVICE = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new ThreadFactory() {
+			private final AtomicInteger count = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable r) {
+				final Thread thread = new Thread(r, "constraint-model-" + count.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+}
@@ -0,0 +1,91 @@
+package com.lotaris.junit.validation;
+
+import javax.persistence.Column;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+
+/**
+ * Rule verified on every constraint of a {@link ConstraintModel}. Rules must be stateless,
+ * as they are verified in parallel.
+ *
+ * @author Laurent Prevost <laurent.prevost@lotaris.com>
+ */
+public abstract class ConstraintRule {
+
+	private final String description;
+
+	protected ConstraintRule(String description) {
+		this.description = description;
+	}
+
+	/**
+	 * Verifies the rule on a constraint.
+	 *
+	 * @param entry the constraint to verify
+	 * @param model the whole model, to verify the rules involving other constraints
+	 * @return a description of the violation, or null if the constraint follows the rule
+	 */
+	public abstract String check(ConstraintEntry entry, ConstraintModel model);
+
+	public String getDescription() {
+		return description;
+	}
+
+	/**
+	 * Rule checking that every constraint declares at least one validation group.
+	 *
+	 * @return The corresponding rule
+	 */
+	public static ConstraintRule declaresGroups() {
+		return new ConstraintRule("constraints should declare a group") {
+
+			@Override
+			public String check(ConstraintEntry entry, ConstraintModel model) {
+				return entry.getGroups().length == 0 ? entry + " declares no group" : null;
+			}
+		};
+	}
+
+	/**
+	 * Rule checking that the max of a Size constraint equals the length of the Column annotation
+	 * of the same field, when there is one. A Size constraint without max is not checked.
+	 *
+	 * @return The corresponding rule
+	 */
+	public static ConstraintRule sizeMatchesColumnLength() {
+		return new ConstraintRule("Size.max should match Column.length") {
+
+			@Override
+			public String check(ConstraintEntry entry, ConstraintModel model) {
+				if (!(entry.getConstraint() instanceof Size)) {
+					return null;
+				}
+
+				final Column column = entry.getFieldAnnotation(Column.class);
+				final int max = ((Size) entry.getConstraint()).max();
+				return column != null && max != Integer.MAX_VALUE && column.length() != max ? entry + " has max " + max + " but the column length is " + column.length() : null;
+			}
+		};
+	}
+
+	/**
+	 * Rule checking that a field with a NotNull constraint is mapped to a non-nullable column,
+	 * when it has a Column annotation.
+	 *
+	 * @return The corresponding rule
+	 */
+	public static ConstraintRule notNullMatchesColumnNullable() {
+		return new ConstraintRule("NotNull should match Column.nullable") {
+
+			@Override
+			public String check(ConstraintEntry entry, ConstraintModel model) {
+				if (!(entry.getConstraint() instanceof NotNull)) {
+					return null;
+				}
+
+				final Column column = entry.getFieldAnnotation(Column.class);
+				return column != null && column.nullable() ? entry + " is not null but the column is nullable" : null;
+			}
+		};
+	}
+}
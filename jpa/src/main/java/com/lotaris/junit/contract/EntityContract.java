@@ -0,0 +1,704 @@
+package com.lotaris.junit.contract;
+
+import com.lotaris.junit.contract.ResolvedClass.ResolvedField;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import javax.persistence.CollectionTable;
+import javax.persistence.Column;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.MapKeyColumn;
+import javax.persistence.UniqueConstraint;
+
+import static org.junit.Assert.fail;
+
+/**
+ * Declarative contract of the JPA mapping of an entity, replacing long series of
+ * {@link com.lotaris.junit.Assert} calls with positional arguments.
+ *
+ * <p>
+ * The contract is declared with a fluent builder, one clause per mapped field. Attributes
+ * left unset are expected to keep the default value of their annotation, as with the
+ * corresponding assertions. Building the contract compiles it into a plan: the fields and
+ * their annotations are resolved once per class, shared by all the contracts of the class,
+ * and each clause becomes a check of the pre-resolved annotation. Verifying the contract
+ * then runs all the checks in a single pass and fails once with all the mismatches, rather
+ * than stopping at the first one.
+ *
+ * <p><pre>
+ * private static final EntityContract USER = EntityContract.forClass(User.class)
+ *   .id()
+ *   .column("name").nullable(false).length(50).unique(true)
+ *   .column("description").columnDefinition("TEXT")
+ *   .joinColumn("organization").name("ORGANIZATION_ID").nullable(false)
+ *   .collectionTable("roles").name("USER_ROLES").joinColumns("USER_ID").uniqueConstraint("USER_ID", "ROLE")
+ *   .mapKeyColumn("settings").name("SETTING_KEY").length(64)
+ *   .build();
+ *
+ * &#64;Test
+ * public void userMappingShouldHonorItsContract() {
+ *   USER.verify();
+ * }
+ * </pre>
+ *
+ * <p>
+ * {@link #verifyAll(Collection)} verifies the contracts of many entities at once, and
+ * combines with {@link com.lotaris.junit.sharding.Shard} to spread them across forks.
+ *
+ * @author Laurent Prevost <laurent.prevost@lotaris.com>
+ */
+public final class EntityContract {
+
+	/**
+	 * Compiled check of a clause, bound to the resolved annotations
+	 */
+	interface Check {
+		void verify(Mismatches mismatches);
+	}
+
+	private final Class<?> type;
+	private final Check[] checks;
+
+	private EntityContract(Class<?> type, Check[] checks) {
+		this.type = type;
+		this.checks = checks;
+	}
+
+	/**
+	 * Starts the contract of an entity.
+	 *
+	 * @param type the entity class
+	 * @return the builder of the contract
+	 */
+	public static Builder forClass(Class<?> type) {
+		if (type == null) {
+			throw new IllegalArgumentException("The entity class is required");
+		}
+		return new Builder(type);
+	}
+
+	/**
+	 * Verifies the contract.
+	 *
+	 * @throws AssertionError listing all the mismatches, if any
+	 */
+	public void verify() {
+		verifyAll(Collections.singletonList(this));
+	}
+
+	/**
+	 * Verifies several contracts in a single pass.
+	 *
+	 * @param contracts the contracts to verify
+	 * @throws AssertionError listing all the mismatches of all the contracts, if any
+	 */
+	public static void verifyAll(Collection<EntityContract> contracts) {
+		final Mismatches mismatches = new Mismatches();
+		for (EntityContract contract : contracts) {
+			contract.verify(mismatches);
+		}
+
+		if (!mismatches.isEmpty()) {
+			final String subject = contracts.size() == 1 ? "the " + contracts.iterator().next() : contracts.size() + " entity contracts";
+			fail(mismatches.asList().size() + " mismatches in " + subject + ":" + mismatches);
+		}
+	}
+
+	/**
+	 * @return the mismatches between the contract and the mapping, empty if the mapping honors the contract
+	 */
+	public List<String> getMismatches() {
+		final Mismatches mismatches = new Mismatches();
+		verify(mismatches);
+		return Collections.unmodifiableList(mismatches.asList());
+	}
+
+	public Class<?> getType() {
+		return type;
+	}
+
+	/**
+	 * @return the number of checks of the compiled contract
+	 */
+	public int size() {
+		return checks.length;
+	}
+
+	private void verify(Mismatches mismatches) {
+		for (Check check : checks) {
+			check.verify(mismatches);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "contract of " + type.getName() + " (" + checks.length + " checks)";
+	}
+
+	// <editor-fold defaultstate="collapsed" desc="Builder">
+	/**
+	 * Builder of a contract, adding a clause per mapped field.
+	 */
+	public static final class Builder {
+		private final Class<?> type;
+		private final List<Clause> clauses = new ArrayList<>();
+
+		private Builder(Class<?> type) {
+			this.type = type;
+		}
+
+		/**
+		 * Expects the field <code>id</code> to only have the Id and GeneratedValue annotations,
+		 * with an IDENTITY generation strategy, as {@link com.lotaris.junit.Assert#assertIdAnnotations(java.lang.Class)}.
+		 *
+		 * @return this builder
+		 */
+		public Builder id() {
+			clauses.add(new IdClause(this));
+			return this;
+		}
+
+		/**
+		 * @param field the name of the field
+		 * @return the clause expecting a Column annotation on the field
+		 */
+		public ColumnClause column(String field) {
+			return add(new ColumnClause(this, field));
+		}
+
+		/**
+		 * @param field the name of the field
+		 * @return the clause expecting a JoinColumn annotation on the field
+		 */
+		public JoinColumnClause joinColumn(String field) {
+			return add(new JoinColumnClause(this, field));
+		}
+
+		/**
+		 * @param field the name of the field
+		 * @return the clause expecting a CollectionTable annotation on the field
+		 */
+		public CollectionTableClause collectionTable(String field) {
+			return add(new CollectionTableClause(this, field));
+		}
+
+		/**
+		 * @param field the name of the field
+		 * @return the clause expecting a MapKeyColumn annotation on the field
+		 */
+		public MapKeyColumnClause mapKeyColumn(String field) {
+			return add(new MapKeyColumnClause(this, field));
+		}
+
+		/**
+		 * Compiles the contract, resolving the fields and annotations of the clauses.
+		 *
+		 * @return the contract
+		 */
+		public EntityContract build() {
+			final ResolvedClass resolved = ResolvedClass.of(type);
+
+			final Check[] checks = new Check[clauses.size()];
+			for (int i = 0; i < checks.length; i++) {
+				final Clause clause = clauses.get(i);
+				final ResolvedField field = resolved.getField(clause.field);
+				checks[i] = field != null ? clause.compile(field) : mismatch(clause.field, "no such field");
+			}
+
+			return new EntityContract(type, checks);
+		}
+
+		private <C extends Clause> C add(C clause) {
+			clauses.add(clause);
+			return clause;
+		}
+
+		private Check mismatch(final String field, final String message) {
+			return new Check() {
+				@Override
+				public void verify(Mismatches mismatches) {
+					mismatches.add(type, field, message);
+				}
+			};
+		}
+	}
+
+	/**
+	 * Clause of a contract on a field. The clause continues the contract with the next
+	 * clause or builds it.
+	 */
+	public abstract static class Clause {
+		final Builder builder;
+		final String field;
+
+		private Clause(Builder builder, String field) {
+			this.builder = builder;
+			this.field = field;
+		}
+
+		/**
+		 * @see Builder#id()
+		 */
+		public Builder id() {
+			return builder.id();
+		}
+
+		/**
+		 * @see Builder#column(java.lang.String)
+		 */
+		public ColumnClause column(String field) {
+			return builder.column(field);
+		}
+
+		/**
+		 * @see Builder#joinColumn(java.lang.String)
+		 */
+		public JoinColumnClause joinColumn(String field) {
+			return builder.joinColumn(field);
+		}
+
+		/**
+		 * @see Builder#collectionTable(java.lang.String)
+		 */
+		public CollectionTableClause collectionTable(String field) {
+			return builder.collectionTable(field);
+		}
+
+		/**
+		 * @see Builder#mapKeyColumn(java.lang.String)
+		 */
+		public MapKeyColumnClause mapKeyColumn(String field) {
+			return builder.mapKeyColumn(field);
+		}
+
+		/**
+		 * @see Builder#build()
+		 */
+		public EntityContract build() {
+			return builder.build();
+		}
+
+		/**
+		 * @param resolved the resolved field of the clause
+		 * @return the check of the clause, bound to the annotations of the field
+		 */
+		abstract Check compile(ResolvedField resolved);
+
+		Check missing(String annotation) {
+			return builder.mismatch(field, "expected a " + annotation + " annotation");
+		}
+	}
+
+	private static final class IdClause extends Clause {
+		private IdClause(Builder builder) {
+			super(builder, "id");
+		}
+
+		@Override
+		Check compile(ResolvedField resolved) {
+			final Class<?> type = builder.type;
+			final int count = resolved.getAnnotationCount();
+			final Id id = resolved.getAnnotation(Id.class);
+			final GeneratedValue generatedValue = resolved.getAnnotation(GeneratedValue.class);
+
+			return new Check() {
+				@Override
+				public void verify(Mismatches mismatches) {
+					mismatches.expect(type, field, "annotation count", 2, count);
+					if (id == null) {
+						mismatches.add(type, field, "expected an Id annotation");
+					}
+					if (generatedValue == null) {
+						mismatches.add(type, field, "expected a GeneratedValue annotation");
+					} else {
+						mismatches.expect(type, field, "GeneratedValue.strategy", GenerationType.IDENTITY, generatedValue.strategy());
+						mismatches.expect(type, field, "GeneratedValue.generator", "", generatedValue.generator());
+					}
+				}
+			};
+		}
+	}
+	// </editor-fold>
+
+	// <editor-fold defaultstate="collapsed" desc="Column clauses">
+	/**
+	 * Clause expecting a Column annotation. Unset attributes are expected to keep their default value.
+	 */
+	public static final class ColumnClause extends Clause {
+		private String name = "";
+		private boolean nullable = true;
+		private boolean unique = false;
+		private boolean insertable = true;
+		private boolean updatable = true;
+		private String columnDefinition = "";
+		private String table = "";
+		private int length = 255;
+		private int precision = 0;
+		private int scale = 0;
+
+		private ColumnClause(Builder builder, String field) {
+			super(builder, field);
+		}
+
+		public ColumnClause name(String name) {
+			this.name = name;
+			return this;
+		}
+
+		public ColumnClause nullable(boolean nullable) {
+			this.nullable = nullable;
+			return this;
+		}
+
+		public ColumnClause unique(boolean unique) {
+			this.unique = unique;
+			return this;
+		}
+
+		public ColumnClause insertable(boolean insertable) {
+			this.insertable = insertable;
+			return this;
+		}
+
+		public ColumnClause updatable(boolean updatable) {
+			this.updatable = updatable;
+			return this;
+		}
+
+		public ColumnClause columnDefinition(String columnDefinition) {
+			this.columnDefinition = columnDefinition;
+			return this;
+		}
+
+		public ColumnClause table(String table) {
+			this.table = table;
+			return this;
+		}
+
+		public ColumnClause length(int length) {
+			this.length = length;
+			return this;
+		}
+
+		public ColumnClause precision(int precision) {
+			this.precision = precision;
+			return this;
+		}
+
+		public ColumnClause scale(int scale) {
+			this.scale = scale;
+			return this;
+		}
+
+		@Override
+		Check compile(ResolvedField resolved) {
+			final Column annotation = resolved.getAnnotation(Column.class);
+			if (annotation == null) {
+				return missing("Column");
+			}
+
+			final Class<?> type = builder.type;
+			final String name = this.name;
+			final boolean nullable = this.nullable;
+			final boolean unique = this.unique;
+			final boolean insertable = this.insertable;
+			final boolean updatable = this.updatable;
+			final String columnDefinition = this.columnDefinition;
+			final String table = this.table;
+			final int length = this.length;
+			final int precision = this.precision;
+			final int scale = this.scale;
+
+			return new Check() {
+				@Override
+				public void verify(Mismatches mismatches) {
+					mismatches.expect(type, field, "Column.name", name, annotation.name());
+					mismatches.expect(type, field, "Column.nullable", nullable, annotation.nullable());
+					mismatches.expect(type, field, "Column.unique", unique, annotation.unique());
+					mismatches.expect(type, field, "Column.insertable", insertable, annotation.insertable());
+					mismatches.expect(type, field, "Column.updatable", updatable, annotation.updatable());
+					mismatches.expect(type, field, "Column.columnDefinition", columnDefinition, annotation.columnDefinition());
+					mismatches.expect(type, field, "Column.table", table, annotation.table());
+					mismatches.expect(type, field, "Column.length", length, annotation.length());
+					mismatches.expect(type, field, "Column.precision", precision, annotation.precision());
+					mismatches.expect(type, field, "Column.scale", scale, annotation.scale());
+				}
+			};
+		}
+	}
+
+	/**
+	 * Clause expecting a JoinColumn annotation. Unset attributes are expected to keep their default value.
+	 */
+	public static final class JoinColumnClause extends Clause {
+		private String name = "";
+		private String referencedColumnName = "";
+		private boolean nullable = true;
+		private boolean unique = false;
+
+		private JoinColumnClause(Builder builder, String field) {
+			super(builder, field);
+		}
+
+		public JoinColumnClause name(String name) {
+			this.name = name;
+			return this;
+		}
+
+		public JoinColumnClause referencedColumnName(String referencedColumnName) {
+			this.referencedColumnName = referencedColumnName;
+			return this;
+		}
+
+		public JoinColumnClause nullable(boolean nullable) {
+			this.nullable = nullable;
+			return this;
+		}
+
+		public JoinColumnClause unique(boolean unique) {
+			this.unique = unique;
+			return this;
+		}
+
+		@Override
+		Check compile(ResolvedField resolved) {
+			final JoinColumn annotation = resolved.getAnnotation(JoinColumn.class);
+			if (annotation == null) {
+				return missing("JoinColumn");
+			}
+
+			final Class<?> type = builder.type;
+			final String name = this.name;
+			final String referencedColumnName = this.referencedColumnName;
+			final boolean nullable = this.nullable;
+			final boolean unique = this.unique;
+
+			return new Check() {
+				@Override
+				public void verify(Mismatches mismatches) {
+					mismatches.expect(type, field, "JoinColumn.name", name, annotation.name());
+					mismatches.expect(type, field, "JoinColumn.referencedColumnName", referencedColumnName, annotation.referencedColumnName());
+					mismatches.expect(type, field, "JoinColumn.nullable", nullable, annotation.nullable());
+					mismatches.expect(type, field, "JoinColumn.unique", unique, annotation.unique());
+
+					// the following parameters should not be used and keep their default values
+					mismatches.expect(type, field, "JoinColumn.columnDefinition", "", annotation.columnDefinition());
+					mismatches.expect(type, field, "JoinColumn.insertable", true, annotation.insertable());
+					mismatches.expect(type, field, "JoinColumn.table", "", annotation.table());
+					mismatches.expect(type, field, "JoinColumn.updatable", true, annotation.updatable());
+				}
+			};
+		}
+	}
+
+	/**
+	 * Clause expecting a MapKeyColumn annotation. Unset attributes are expected to keep their default value.
+	 */
+	public static final class MapKeyColumnClause extends Clause {
+		private String name = "";
+		private boolean unique = false;
+		private boolean nullable = false;
+		private boolean insertable = true;
+		private boolean updatable = true;
+		private String columnDefinition = "";
+		private String table = "";
+		private int length = 255;
+		private int precision = 0;
+		private int scale = 0;
+
+		private MapKeyColumnClause(Builder builder, String field) {
+			super(builder, field);
+		}
+
+		public MapKeyColumnClause name(String name) {
+			this.name = name;
+			return this;
+		}
+
+		public MapKeyColumnClause unique(boolean unique) {
+			this.unique = unique;
+			return this;
+		}
+
+		public MapKeyColumnClause nullable(boolean nullable) {
+			this.nullable = nullable;
+			return this;
+		}
+
+		public MapKeyColumnClause insertable(boolean insertable) {
+			this.insertable = insertable;
+			return this;
+		}
+
+		public MapKeyColumnClause updatable(boolean updatable) {
+			this.updatable = updatable;
+			return this;
+		}
+
+		public MapKeyColumnClause columnDefinition(String columnDefinition) {
+			this.columnDefinition = columnDefinition;
+			return this;
+		}
+
+		public MapKeyColumnClause table(String table) {
+			this.table = table;
+			return this;
+		}
+
+		public MapKeyColumnClause length(int length) {
+			this.length = length;
+			return this;
+		}
+
+		public MapKeyColumnClause precision(int precision) {
+			this.precision = precision;
+			return this;
+		}
+
+		public MapKeyColumnClause scale(int scale) {
+			this.scale = scale;
+			return this;
+		}
+
+		@Override
+		Check compile(ResolvedField resolved) {
+			final MapKeyColumn annotation = resolved.getAnnotation(MapKeyColumn.class);
+			if (annotation == null) {
+				return missing("MapKeyColumn");
+			}
+
+			final Class<?> type = builder.type;
+			final String name = this.name;
+			final boolean unique = this.unique;
+			final boolean nullable = this.nullable;
+			final boolean insertable = this.insertable;
+			final boolean updatable = this.updatable;
+			final String columnDefinition = this.columnDefinition;
+			final String table = this.table;
+			final int length = this.length;
+			final int precision = this.precision;
+			final int scale = this.scale;
+
+			return new Check() {
+				@Override
+				public void verify(Mismatches mismatches) {
+					mismatches.expect(type, field, "MapKeyColumn.name", name, annotation.name());
+					mismatches.expect(type, field, "MapKeyColumn.unique", unique, annotation.unique());
+					mismatches.expect(type, field, "MapKeyColumn.nullable", nullable, annotation.nullable());
+					mismatches.expect(type, field, "MapKeyColumn.insertable", insertable, annotation.insertable());
+					mismatches.expect(type, field, "MapKeyColumn.updatable", updatable, annotation.updatable());
+					mismatches.expect(type, field, "MapKeyColumn.columnDefinition", columnDefinition, annotation.columnDefinition());
+					mismatches.expect(type, field, "MapKeyColumn.table", table, annotation.table());
+					mismatches.expect(type, field, "MapKeyColumn.length", length, annotation.length());
+					mismatches.expect(type, field, "MapKeyColumn.precision", precision, annotation.precision());
+					mismatches.expect(type, field, "MapKeyColumn.scale", scale, annotation.scale());
+				}
+			};
+		}
+	}
+	// </editor-fold>
+
+	// <editor-fold defaultstate="collapsed" desc="Collection table clause">
+	/**
+	 * Clause expecting a CollectionTable annotation with non-nullable join columns, like
+	 * {@link com.lotaris.junit.Assert#assertCollectionTableAnnotation(java.lang.Class, java.lang.String, java.lang.String, java.lang.String[], java.lang.String[])}.
+	 *
+	 * <p>
+	 * The unique constraint is verified more strictly than by the assertion, which accepts a
+	 * collection table without constraint whatever the expected columns: with
+	 * {@link #uniqueConstraint(java.lang.String...)}, the table must have exactly this
+	 * constraint, and without it, the table must have no constraint at all.
+	 */
+	public static final class CollectionTableClause extends Clause {
+		private String name = "";
+		private String[] joinColumnNames = new String[0];
+		private String[] constraintColumnNames;
+
+		private CollectionTableClause(Builder builder, String field) {
+			super(builder, field);
+		}
+
+		public CollectionTableClause name(String name) {
+			this.name = name;
+			return this;
+		}
+
+		/**
+		 * @param names the names of the join columns, in order
+		 * @return this clause
+		 */
+		public CollectionTableClause joinColumns(String... names) {
+			this.joinColumnNames = names.clone();
+			return this;
+		}
+
+		/**
+		 * Expects a unique constraint with the default name on the specified columns. Without
+		 * this attribute, the collection table is expected to have no unique constraint.
+		 *
+		 * @param columnNames the names of the columns of the constraint, in order
+		 * @return this clause
+		 */
+		public CollectionTableClause uniqueConstraint(String... columnNames) {
+			this.constraintColumnNames = columnNames.clone();
+			return this;
+		}
+
+		@Override
+		Check compile(ResolvedField resolved) {
+			final CollectionTable annotation = resolved.getAnnotation(CollectionTable.class);
+			if (annotation == null) {
+				return missing("CollectionTable");
+			}
+
+			final Class<?> type = builder.type;
+			final String name = this.name;
+			final String[] expectedJoinColumnNames = joinColumnNames;
+			final String[] expectedConstraintColumnNames = constraintColumnNames;
+
+			// the nested annotations are copied once, each access cloning their arrays
+			final JoinColumn[] joinColumns = annotation.joinColumns();
+			final String[] joinColumnNames = new String[joinColumns.length];
+			final boolean[] joinColumnNullables = new boolean[joinColumns.length];
+			for (int i = 0; i < joinColumns.length; i++) {
+				joinColumnNames[i] = joinColumns[i].name();
+				joinColumnNullables[i] = joinColumns[i].nullable();
+			}
+			final UniqueConstraint[] uniqueConstraints = annotation.uniqueConstraints();
+			final int indexCount = annotation.indexes().length;
+
+			return new Check() {
+				@Override
+				public void verify(Mismatches mismatches) {
+					mismatches.expect(type, field, "CollectionTable.name", name, annotation.name());
+					mismatches.expect(type, field, "CollectionTable.joinColumns", expectedJoinColumnNames, joinColumnNames);
+					for (int i = 0; i < joinColumnNullables.length; i++) {
+						if (joinColumnNullables[i]) {
+							mismatches.add(type, field, "CollectionTable.joinColumns[" + i + "] should not be nullable");
+						}
+					}
+
+					if (expectedConstraintColumnNames == null) {
+						mismatches.expect(type, field, "CollectionTable.uniqueConstraints count", 0, uniqueConstraints.length);
+					} else if (uniqueConstraints.length != 1) {
+						mismatches.expect(type, field, "CollectionTable.uniqueConstraints count", 1, uniqueConstraints.length);
+					} else {
+						mismatches.expect(type, field, "CollectionTable.uniqueConstraints[0].columnNames", expectedConstraintColumnNames, uniqueConstraints[0].columnNames());
+						mismatches.expect(type, field, "CollectionTable.uniqueConstraints[0].name", "", uniqueConstraints[0].name());
+					}
+
+					// the following parameters should not be used and keep their default values
+					mismatches.expect(type, field, "CollectionTable.schema", "", annotation.schema());
+					mismatches.expect(type, field, "CollectionTable.catalog", "", annotation.catalog());
+					mismatches.expect(type, field, "CollectionTable.indexes count", 0, indexCount);
+				}
+			};
+		}
+	}
+	// </editor-fold>
+}
@@ -0,0 +1,49 @@
+package com.lotaris.junit.contract;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Mismatches collected while verifying contracts, reported all at once.
+ *
+ * @author Laurent Prevost <laurent.prevost@lotaris.com>
+ */
+final class Mismatches {
+
+	private final List<String> mismatches = new ArrayList<>();
+
+	void add(Class<?> type, String field, String message) {
+		mismatches.add(type.getName() + "." + field + ": " + message);
+	}
+
+	void expect(Class<?> type, String field, String attribute, Object expected, Object actual) {
+		if (!Objects.equals(expected, actual)) {
+			add(type, field, attribute + " expected <" + expected + "> but was <" + actual + ">");
+		}
+	}
+
+	void expect(Class<?> type, String field, String attribute, Object[] expected, Object[] actual) {
+		if (!Arrays.equals(expected, actual)) {
+			add(type, field, attribute + " expected <" + Arrays.toString(expected) + "> but was <" + Arrays.toString(actual) + ">");
+		}
+	}
+
+	boolean isEmpty() {
+		return mismatches.isEmpty();
+	}
+
+	List<String> asList() {
+		return mismatches;
+	}
+
+	@Override
+	public String toString() {
+		final StringBuilder sb = new StringBuilder();
+		for (String mismatch : mismatches) {
+			sb.append("\n- ").append(mismatch);
+		}
+		return sb.toString();
+	}
+}
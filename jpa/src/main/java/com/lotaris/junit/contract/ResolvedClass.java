@@ -0,0 +1,85 @@
+package com.lotaris.junit.contract;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Fields and field annotations of a class, resolved once per class and shared by all the
+ * contracts of the class.
+ *
+ * @author Laurent Prevost <laurent.prevost@lotaris.com>
+ */
+final class ResolvedClass {
+
+	/**
+	 * Resolved classes, released with the classes
+	 */
+	private static final ClassValue<ResolvedClass> RESOLVED = new ClassValue<ResolvedClass>() {
+		@Override
+		protected ResolvedClass computeValue(Class<?> type) {
+			return new ResolvedClass(type);
+		}
+	};
+
+	private final Map<String, ResolvedField> fields;
+
+	private ResolvedClass(Class<?> type) {
+		final Field[] declaredFields = type.getDeclaredFields();
+		final Map<String, ResolvedField> resolved = new HashMap<>(declaredFields.length * 2);
+		for (Field field : declaredFields) {
+			resolved.put(field.getName(), new ResolvedField(field));
+		}
+		fields = Collections.unmodifiableMap(resolved);
+	}
+
+	static ResolvedClass of(Class<?> type) {
+		return RESOLVED.get(type);
+	}
+
+	/**
+	 * @param name the name of a declared field
+	 * @return the field, or null if the class declares no such field
+	 */
+	ResolvedField getField(String name) {
+		return fields.get(name);
+	}
+
+	/**
+	 * A declared field and its annotations.
+	 */
+	static final class ResolvedField {
+		private final Field field;
+		private final Map<Class<? extends Annotation>, Annotation> annotations;
+
+		private ResolvedField(Field field) {
+			this.field = field;
+
+			final Annotation[] declared = field.getDeclaredAnnotations();
+			final Map<Class<? extends Annotation>, Annotation> resolved = new HashMap<>(declared.length * 2);
+			for (Annotation annotation : declared) {
+				resolved.put(annotation.annotationType(), annotation);
+			}
+			annotations = Collections.unmodifiableMap(resolved);
+		}
+
+		Field getField() {
+			return field;
+		}
+
+		/**
+		 * @param <A> the annotation type
+		 * @param annotationClass the annotation class
+		 * @return the annotation, or null if the field has no such annotation
+		 */
+		<A extends Annotation> A getAnnotation(Class<A> annotationClass) {
+			return annotationClass.cast(annotations.get(annotationClass));
+		}
+
+		int getAnnotationCount() {
+			return annotations.size();
+		}
+	}
+}
@@ -0,0 +1,620 @@
+package com.lotaris.junit.fixtures;
+
+import com.lotaris.junit.ClassUtils;
+import com.lotaris.junit.ClassUtils.FieldAccessor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import javax.persistence.Column;
+import javax.persistence.ElementCollection;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToMany;
+import javax.persistence.ManyToOne;
+import javax.persistence.OneToMany;
+import javax.persistence.OneToOne;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+import javax.persistence.Transient;
+import javax.persistence.Version;
+
+/**
+ * Seeded generator of valid entity instances, driven by the JPA mapping of the entity.
+ *
+ * <p>
+ * The values follow the mapping of each field: the length, nullability and uniqueness of
+ * its Column annotation, the constants of an enumerated field that fit in its column, the precision of a temporal
+ * field, the references given for its ManyToOne or OneToOne association, and a few values
+ * for an ElementCollection of basic values. The values of unique fields are derived from the
+ * position of the instance in the stream, so they stay unique over the whole stream. The
+ * generated fields, identifiers and versions excepted, are resolved once and written through
+ * {@link FieldAccessor field accessors}, without boxing for the int, long, double and boolean
+ * fields.
+ *
+ * <p>
+ * The same seed always generates the same stream of instances.
+ *
+ * <p><pre>
+ * EntityGenerator&lt;User&gt; generator = EntityGenerator.forClass(User.class, 42).references(Organization.class, organizations);
+ * for (User user : generator.generate(1000000)) {
+ *   ...
+ * }
+ * </pre>
+ *
+ * @param <T> the entity type
+ * @author Laurent Prevost <laurent.prevost@lotaris.com>
+ */
+public class EntityGenerator<T> {
+
+	private static final String ALPHABET = "abcdefghijklmnopqrstuvwxyz0123456789";
+
+	/**
+	 * Maximum length of the generated strings, whatever the column length
+	 */
+	private static final int MAX_STRING_LENGTH = 24;
+
+	/**
+	 * Number of base 36 digits of the unique part of a string, enough for any long
+	 */
+	private static final int UNIQUE_DIGITS = 13;
+
+	/**
+	 * Maximum number of elements generated for an element collection
+	 */
+	private static final int MAX_ELEMENTS = 3;
+
+	/**
+	 * Origin of the generated dates (2014-01-01T00:00:00Z)
+	 */
+	private static final long DATE_ORIGIN = 1388534400000L;
+
+	/**
+	 * Range of the generated dates, about ten years
+	 */
+	private static final long DATE_RANGE = TimeUnit.DAYS.toMillis(3650);
+
+	/**
+	 * Order of the fields of a class, by name
+	 */
+	private static final Comparator<Field> FIELD_ORDER = new Comparator<Field>() {
+		@Override
+		public int compare(Field o1, Field o2) {
+			return o1.getName().compareTo(o2.getName());
+		}
+	};
+
+	private final Class<T> entityClass;
+	private final MethodHandle constructor;
+	private final Random random;
+	private final Map<Class<?>, List<?>> references = new HashMap<>();
+	private double nullRatio;
+	private List<FieldWriter> writers;
+	private long index;
+
+	private EntityGenerator(Class<T> entityClass, long seed) {
+		this.entityClass = entityClass;
+		this.random = new Random(seed);
+
+		try {
+			final Constructor<T> noArgConstructor = entityClass.getDeclaredConstructor();
+			noArgConstructor.setAccessible(true);
+			constructor = MethodHandles.lookup().unreflectConstructor(noArgConstructor).asType(MethodType.methodType(Object.class));
+		} catch (NoSuchMethodException | IllegalAccessException e) {
+			throw new IllegalArgumentException("The entity " + entityClass.getName() + " has no accessible no-arg constructor", e);
+		}
+	}
+
+	/**
+	 * Creates a generator of instances of the specified entity.
+	 *
+	 * @param <T> the entity type
+	 * @param entityClass the entity class
+	 * @param seed the seed of the generator
+	 * @return the generator
+	 * @throws IllegalArgumentException if the entity has no no-arg constructor
+	 */
+	public static <T> EntityGenerator<T> forClass(Class<T> entityClass, long seed) {
+		return new EntityGenerator<>(entityClass, seed);
+	}
+
+	//<editor-fold defaultstate="collapsed" desc="Configuration">
+	/**
+	 * Sets the instances referenced by the ManyToOne and OneToOne associations to the specified type.
+	 * The referenced instance of each generated entity is picked randomly in the list.
+	 *
+	 * @param <R> the referenced type
+	 * @param type the referenced type
+	 * @param instances the instances which can be referenced
+	 * @return this generator
+	 */
+	public <R> EntityGenerator<T> references(Class<R> type, List<? extends R> instances) {
+		checkNotStarted();
+		references.put(type, new ArrayList<>(instances));
+		return this;
+	}
+
+	/**
+	 * @param nullRatio the probability for a nullable field to be null, between 0 and 1, 0 by default
+	 * @return this generator
+	 */
+	public EntityGenerator<T> nullRatio(double nullRatio) {
+		checkNotStarted();
+		if (nullRatio < 0 || nullRatio > 1) {
+			throw new IllegalArgumentException("The null ratio must be between 0 and 1, was " + nullRatio);
+		}
+		this.nullRatio = nullRatio;
+		return this;
+	}
+	//</editor-fold>
+
+	/**
+	 * Generates the next instance of the stream.
+	 *
+	 * @return the generated instance
+	 * @throws IllegalArgumentException if a field cannot be generated from its mapping
+	 * @throws IllegalStateException if the values of a unique field are exhausted
+	 */
+	public T next() {
+		if (writers == null) {
+			writers = createWriters();
+		}
+
+		final T entity;
+		try {
+			entity = entityClass.cast((Object) constructor.invokeExact());
+		} catch (Throwable t) {
+			throw new IllegalStateException("Unable to instantiate the entity " + entityClass.getName(), t);
+		}
+
+		for (FieldWriter writer : writers) {
+			writer.write(entity, index);
+		}
+
+		index++;
+		return entity;
+	}
+
+	/**
+	 * Streams the next instances. The instances are generated on demand, so streams of millions
+	 * of instances do not need to fit in memory.
+	 *
+	 * @param count the number of instances
+	 * @return the instances, which can only be iterated once
+	 */
+	public Iterable<T> generate(final long count) {
+		return new Iterable<T>() {
+			@Override
+			public Iterator<T> iterator() {
+				return new Iterator<T>() {
+					private long remaining = count;
+
+					@Override
+					public boolean hasNext() {
+						return remaining > 0;
+					}
+
+					@Override
+					public T next() {
+						if (remaining <= 0) {
+							throw new NoSuchElementException();
+						}
+						remaining--;
+						return EntityGenerator.this.next();
+					}
+
+					@Override
+					public void remove() {
+						throw new UnsupportedOperationException();
+					}
+				};
+			}
+		};
+	}
+
+	private void checkNotStarted() {
+		if (writers != null) {
+			throw new IllegalStateException("The generator cannot be configured once it started generating instances");
+		}
+	}
+
+	/**
+	 * Resolves the mapping of the fields of the entity and of its superclasses.
+	 */
+	private List<FieldWriter> createWriters() {
+		final List<FieldWriter> fieldWriters = new ArrayList<>();
+
+		for (Class<?> c = entityClass; c != null && c != Object.class; c = c.getSuperclass()) {
+			// the order of the declared fields is unspecified, sorting them keeps the streams reproducible
+			final Field[] fields = c.getDeclaredFields();
+			Arrays.sort(fields, FIELD_ORDER);
+
+			for (Field field : fields) {
+				if (Modifier.isStatic(field.getModifiers()) || Modifier.isTransient(field.getModifiers()) || field.isSynthetic()
+					|| field.isAnnotationPresent(Transient.class) || field.isAnnotationPresent(GeneratedValue.class)
+					|| field.isAnnotationPresent(Version.class) || field.isAnnotationPresent(OneToMany.class)
+					|| field.isAnnotationPresent(ManyToMany.class)) {
+					continue;
+				}
+
+				final FieldWriter writer = createWriter(field);
+				if (writer != null) {
+					fieldWriters.add(writer);
+				}
+			}
+		}
+
+		return Collections.unmodifiableList(fieldWriters);
+	}
+
+	private FieldWriter createWriter(Field field) {
+		// the accessor is taken from the declaring class, as a field of the entity may shadow a field of its superclasses
+		@SuppressWarnings("unchecked")
+		final FieldAccessor<Object, Object> accessor = (FieldAccessor<Object, Object>) ClassUtils.getFieldAccessor(field.getDeclaringClass(), field.getName(), Object.class);
+		final Column column = field.getAnnotation(Column.class);
+		final boolean unique = column != null && column.unique();
+		final boolean nullable = !field.getType().isPrimitive() && (column == null || column.nullable());
+		final Class<?> type = field.getType();
+
+		if (field.isAnnotationPresent(ManyToOne.class) || field.isAnnotationPresent(OneToOne.class)) {
+			return createReferenceWriter(field, accessor);
+		} else if (field.isAnnotationPresent(ElementCollection.class)) {
+			return createElementCollectionWriter(field, accessor);
+		}
+
+		final ValueGenerator generator = createValueGenerator(field, type, column, unique);
+		if (generator == null) {
+			if (nullable) {
+				return null;
+			}
+			throw new IllegalArgumentException("Unable to generate the non-nullable field " + field + " of type " + type.getName());
+		}
+
+		if (type == int.class) {
+			return new FieldWriter(accessor, false) {
+				@Override
+				void writeValue(Object entity, long index) {
+					accessor.setInt(entity, unique ? uniqueInt(index) : random.nextInt(Integer.MAX_VALUE));
+				}
+			};
+		} else if (type == long.class) {
+			return new FieldWriter(accessor, false) {
+				@Override
+				void writeValue(Object entity, long index) {
+					accessor.setLong(entity, unique ? index + 1 : random.nextLong() & Long.MAX_VALUE);
+				}
+			};
+		} else if (type == double.class) {
+			return new FieldWriter(accessor, false) {
+				@Override
+				void writeValue(Object entity, long index) {
+					accessor.setDouble(entity, unique ? index + 1 : random.nextDouble() * 1000);
+				}
+			};
+		} else if (type == boolean.class) {
+			return new FieldWriter(accessor, false) {
+				@Override
+				void writeValue(Object entity, long index) {
+					accessor.setBoolean(entity, random.nextBoolean());
+				}
+			};
+		}
+
+		return new FieldWriter(accessor, nullable && !unique) {
+			@Override
+			void writeValue(Object entity, long index) {
+				accessor.set(entity, generator.next(index));
+			}
+		};
+	}
+
+	/**
+	 * Creates the generator of the values of a basic field, or returns null if the type is not supported.
+	 */
+	private ValueGenerator createValueGenerator(final Field field, final Class<?> type, Column column, final boolean unique) {
+		final int length = column != null ? column.length() : 255;
+
+		if (type == String.class) {
+			if (length < 1) {
+				if (unique) {
+					throw new IllegalArgumentException("Unable to generate unique values for the field " + field + " of length " + length);
+				}
+				return new ValueGenerator() {
+					@Override
+					Object next(long index) {
+						return "";
+					}
+				};
+			} else if (unique && length < UNIQUE_DIGITS) {
+				final long capacity = (long) Math.pow(36, length);
+				return new ValueGenerator() {
+					@Override
+					Object next(long index) {
+						if (index >= capacity) {
+							throw new IllegalStateException("The unique values of the field " + field + " of length " + length + " are exhausted after " + capacity + " instances");
+						}
+						return pad(Long.toString(index, 36), length);
+					}
+				};
+			}
+
+			return new ValueGenerator() {
+				@Override
+				Object next(long index) {
+					final int size = 1 + random.nextInt(Math.min(length, MAX_STRING_LENGTH));
+					final StringBuilder sb = new StringBuilder(unique ? pad(Long.toString(index, 36), UNIQUE_DIGITS) : "");
+					while (sb.length() < size) {
+						sb.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+					}
+					return sb.toString();
+				}
+			};
+		} else if (type == Integer.class || type == int.class) {
+			return new ValueGenerator() {
+				@Override
+				Object next(long index) {
+					return unique ? uniqueInt(index) : random.nextInt(Integer.MAX_VALUE);
+				}
+			};
+		} else if (type == Long.class || type == long.class) {
+			return new ValueGenerator() {
+				@Override
+				Object next(long index) {
+					return unique ? index + 1 : random.nextLong() & Long.MAX_VALUE;
+				}
+			};
+		} else if (type == Double.class || type == double.class) {
+			return new ValueGenerator() {
+				@Override
+				Object next(long index) {
+					return unique ? index + 1 : random.nextDouble() * 1000;
+				}
+			};
+		} else if (type == Float.class || type == float.class) {
+			return new ValueGenerator() {
+				@Override
+				Object next(long index) {
+					if (unique && index >= 1 << 24) {
+						throw new IllegalStateException("The unique float values of the field " + field + " are exhausted after " + index + " instances");
+					}
+					return unique ? (float) (index + 1) : random.nextFloat() * 1000;
+				}
+			};
+		} else if (type == Short.class || type == short.class) {
+			return new ValueGenerator() {
+				@Override
+				Object next(long index) {
+					if (unique && index >= Short.MAX_VALUE) {
+						throw new IllegalStateException("The unique short values of the field " + field + " are exhausted after " + index + " instances");
+					}
+					return unique ? (short) (index + 1) : (short) random.nextInt(Short.MAX_VALUE);
+				}
+			};
+		} else if (type == Byte.class || type == byte.class) {
+			return new ValueGenerator() {
+				@Override
+				Object next(long index) {
+					if (unique && index >= Byte.MAX_VALUE) {
+						throw new IllegalStateException("The unique byte values of the field " + field + " are exhausted after " + index + " instances");
+					}
+					return unique ? (byte) (index + 1) : (byte) random.nextInt(Byte.MAX_VALUE);
+				}
+			};
+		} else if (type == Character.class || type == char.class) {
+			return new ValueGenerator() {
+				@Override
+				Object next(long index) {
+					if (unique && index >= ALPHABET.length()) {
+						throw new IllegalStateException("The unique char values of the field " + field + " are exhausted after " + index + " instances");
+					}
+					return ALPHABET.charAt(unique ? (int) index : random.nextInt(ALPHABET.length()));
+				}
+			};
+		} else if (type == Boolean.class || type == boolean.class) {
+			return unique ? null : new ValueGenerator() {
+				@Override
+				Object next(long index) {
+					return random.nextBoolean();
+				}
+			};
+		} else if (type == BigDecimal.class) {
+			final int scale = column != null ? column.scale() : 0;
+			final int precision = column != null && column.precision() > 0 ? Math.min(column.precision(), 18) : 10;
+			final long bound = (long) Math.pow(10, precision);
+			return new ValueGenerator() {
+				@Override
+				Object next(long index) {
+					final long unscaled = unique ? index + 1 : (random.nextLong() & Long.MAX_VALUE) % bound;
+					if (unique && unscaled >= bound) {
+						throw new IllegalStateException("The unique values of the field " + field + " of precision " + precision + " are exhausted");
+					}
+					return new BigDecimal(BigInteger.valueOf(unscaled), scale);
+				}
+			};
+		} else if (type == Date.class) {
+			final Temporal temporal = field.getAnnotation(Temporal.class);
+			final TemporalType temporalType = temporal != null ? temporal.value() : TemporalType.TIMESTAMP;
+			return new ValueGenerator() {
+				@Override
+				Object next(long index) {
+					long time = DATE_ORIGIN + (unique ? TimeUnit.SECONDS.toMillis(index) : (random.nextLong() & Long.MAX_VALUE) % DATE_RANGE);
+					if (temporalType == TemporalType.DATE) {
+						time = unique ? DATE_ORIGIN + TimeUnit.DAYS.toMillis(index) : time - time % TimeUnit.DAYS.toMillis(1);
+					} else if (temporalType == TemporalType.TIME) {
+						if (unique && index >= TimeUnit.DAYS.toMillis(1)) {
+							throw new IllegalStateException("The unique values of the time field " + field + " are exhausted");
+						}
+						time = unique ? index : time % TimeUnit.DAYS.toMillis(1);
+					}
+					return new Date(time);
+				}
+			};
+		} else if (type.isEnum()) {
+			final Object[] constants = enumConstants(field, type, column);
+			return new ValueGenerator() {
+				@Override
+				Object next(long index) {
+					if (!unique) {
+						return constants[random.nextInt(constants.length)];
+					} else if (index >= constants.length) {
+						throw new IllegalStateException("The unique values of the enumerated field " + field + " are exhausted after " + constants.length + " instances");
+					}
+					return constants[(int) index];
+				}
+			};
+		}
+
+		return null;
+	}
+
+	/**
+	 * Creates the writer of a ManyToOne or OneToOne association, picking from the given references.
+	 */
+	private FieldWriter createReferenceWriter(Field field, final FieldAccessor<Object, Object> accessor) {
+		final List<?> instances = references.get(field.getType());
+		final ManyToOne manyToOne = field.getAnnotation(ManyToOne.class);
+		final OneToOne oneToOne = field.getAnnotation(OneToOne.class);
+		final JoinColumn joinColumn = field.getAnnotation(JoinColumn.class);
+		final boolean optional = (manyToOne != null ? manyToOne.optional() : oneToOne.optional()) && (joinColumn == null || joinColumn.nullable());
+
+		if (instances == null || instances.isEmpty()) {
+			if (optional) {
+				return null;
+			}
+			throw new IllegalArgumentException("No references given for the mandatory association " + field + " to " + field.getType().getName());
+		}
+
+		return new FieldWriter(accessor, optional) {
+			@Override
+			void writeValue(Object entity, long index) {
+				accessor.set(entity, instances.get(random.nextInt(instances.size())));
+			}
+		};
+	}
+
+	/**
+	 * Creates the writer of an ElementCollection of basic values, which is never null.
+	 */
+	private FieldWriter createElementCollectionWriter(Field field, final FieldAccessor<Object, Object> accessor) {
+		final Type genericType = field.getGenericType();
+		if (!(genericType instanceof ParameterizedType) || !Collection.class.isAssignableFrom(field.getType())
+			|| !(((ParameterizedType) genericType).getActualTypeArguments()[0] instanceof Class)) {
+			return null;
+		}
+
+		final Class<?> elementType = (Class<?>) ((ParameterizedType) genericType).getActualTypeArguments()[0];
+		final ValueGenerator elementGenerator = createValueGenerator(field, elementType, null, false);
+		if (elementGenerator == null) {
+			return null;
+		}
+
+		final boolean isSet = Set.class.isAssignableFrom(field.getType());
+		return new FieldWriter(accessor, false) {
+			@Override
+			void writeValue(Object entity, long index) {
+				final int size = random.nextInt(MAX_ELEMENTS + 1);
+				final Collection<Object> elements = isSet ? new HashSet<>() : new ArrayList<>(size);
+				for (int i = 0; i < size; i++) {
+					elements.add(elementGenerator.next(index));
+				}
+				accessor.set(entity, elements);
+			}
+		};
+	}
+
+	/**
+	 * Returns the constants which can be stored in an enumerated field: all of them when stored
+	 * by ordinal, only those whose name fits in the column when stored by name.
+	 */
+	private static Object[] enumConstants(Field field, Class<?> type, Column column) {
+		final Enumerated enumerated = field.getAnnotation(Enumerated.class);
+		if (enumerated == null || enumerated.value() == EnumType.ORDINAL || column == null) {
+			return type.getEnumConstants();
+		}
+
+		final List<Object> constants = new ArrayList<>();
+		for (Object constant : type.getEnumConstants()) {
+			if (((Enum<?>) constant).name().length() <= column.length()) {
+				constants.add(constant);
+			}
+		}
+
+		if (constants.isEmpty()) {
+			throw new IllegalArgumentException("No constant of the enumerated field " + field + " fits in its column of length " + column.length());
+		}
+		return constants.toArray();
+	}
+
+	private static int uniqueInt(long index) {
+		if (index >= Integer.MAX_VALUE) {
+			throw new IllegalStateException("The unique int values are exhausted after " + index + " instances");
+		}
+		return (int) index + 1;
+	}
+
+	private static String pad(String value, int length) {
+		final StringBuilder sb = new StringBuilder(length);
+		for (int i = value.length(); i < length; i++) {
+			sb.append('0');
+		}
+		return sb.append(value).toString();
+	}
+
+	/**
+	 * Generator of the values of a basic field
+	 */
+	private abstract static class ValueGenerator {
+
+		/**
+		 * @param index the position of the instance in the stream
+		 * @return the generated value
+		 */
+		abstract Object next(long index);
+	}
+
+	/**
+	 * Writer of one field of the generated instances
+	 */
+	private abstract class FieldWriter {
+
+		final FieldAccessor<Object, Object> accessor;
+		private final boolean nullable;
+
+		FieldWriter(FieldAccessor<Object, Object> accessor, boolean nullable) {
+			this.accessor = accessor;
+			this.nullable = nullable;
+		}
+
+		void write(Object entity, long index) {
+			if (nullable && nullRatio > 0 && random.nextDouble() < nullRatio) {
+				return;
+			}
+			writeValue(entity, index);
+		}
+
+		abstract void writeValue(Object entity, long index);
+	}
+}
@@ -0,0 +1,375 @@
+package com.lotaris.junit.matchers;
+
+import org.hamcrest.Description;
+import org.hamcrest.Matcher;
+import org.hamcrest.TypeSafeDiagnosingMatcher;
+
+/**
+ * Matchers of double arrays and iterators which do not box the values.
+ *
+ * <p>
+ * The values are scanned once and the scan stops at the first violation. The mismatch
+ * description only shows the values around the offending index. NaN values are neither
+ * sorted nor between any bounds.
+ *
+ * <p><pre>
+ * assertThat(prices, DoubleArrayMatcher.between(0, 1000));
+ * assertThat(prices, DoubleArrayMatcher.sum(1234.5, 0.01));
+ * </pre>
+ *
+ * @author Laurent Prevost <laurent.prevost@lotaris.com>
+ */
+public class DoubleArrayMatcher extends TypeSafeDiagnosingMatcher<double[]> {
+
+	//<editor-fold defaultstate="collapsed" desc="Inner Classes">
+	/**
+	 * State of one verification of a rule
+	 */
+	private abstract static class Scan {
+
+		abstract String accept(long index, double value);
+
+		String finish(long count) {
+			return null;
+		}
+	}
+
+	/**
+	 * Rule verified by a matcher, creating a new scan for each verification
+	 */
+	private abstract static class Rule {
+
+		private final String description;
+
+		Rule(String description) {
+			this.description = description;
+		}
+
+		abstract Scan newScan();
+
+		/**
+		 * Verifies the values of an array in a single loop, without keeping the values around
+		 * the current one. A violation is then described by a {@link #newScan() scan}.
+		 *
+		 * @param values the values
+		 * @return true if all the values follow the rule
+		 */
+		abstract boolean matches(double[] values);
+	}
+	//</editor-fold>
+
+	private final Rule rule;
+
+	private DoubleArrayMatcher(Rule rule) {
+		this.rule = rule;
+	}
+
+	@Override
+	public void describeTo(Description description) {
+		description.appendText(rule.description);
+	}
+
+	@Override
+	protected boolean matchesSafely(double[] item, Description mismatchDescription) {
+		// the scan describing the violation stops at it, so it reads no more values than the loop
+		return rule.matches(item) || scan(rule, PrimitiveIterators.of(item), mismatchDescription);
+	}
+
+	/**
+	 * @return the same matcher for iterators, which are consumed by the verification
+	 */
+	public Matcher<DoubleIterator> overIterator() {
+		return new IteratorMatcher<DoubleIterator>(DoubleIterator.class, rule.description) {
+			@Override
+			boolean scan(DoubleIterator item, Description mismatchDescription) {
+				return DoubleArrayMatcher.scan(rule, item, mismatchDescription);
+			}
+		};
+	}
+
+	//<editor-fold defaultstate="collapsed" desc="Factories">
+	/**
+	 * @return a matcher checking that the values are sorted in ascending order (equal values allowed)
+	 */
+	public static DoubleArrayMatcher sorted() {
+		return ordered("sorted in ascending order", 1, false);
+	}
+
+	/**
+	 * @return a matcher checking that the values are sorted in descending order (equal values allowed)
+	 */
+	public static DoubleArrayMatcher sortedDescending() {
+		return ordered("sorted in descending order", -1, false);
+	}
+
+	/**
+	 * @return a matcher checking that each value is greater than the previous one
+	 */
+	public static DoubleArrayMatcher strictlyIncreasing() {
+		return ordered("strictly increasing", 1, true);
+	}
+
+	/**
+	 * @return a matcher checking that each value is lower than the previous one
+	 */
+	public static DoubleArrayMatcher strictlyDecreasing() {
+		return ordered("strictly decreasing", -1, true);
+	}
+
+	/**
+	 * Matcher checking that all the values are distinct, comparing their bit patterns like
+	 * {@link Double#equals(java.lang.Object)}: 0.0 and -0.0 are distinct, NaN equals NaN.
+	 *
+	 * @return the corresponding matcher
+	 * @see LongArrayMatcher#distinct()
+	 */
+	public static DoubleArrayMatcher distinct() {
+		return new DoubleArrayMatcher(new Rule("distinct values") {
+			@Override
+			Scan newScan() {
+				return new Scan() {
+					private final LongArrayMatcher.LongHashSet seen = new LongArrayMatcher.LongHashSet();
+
+					@Override
+					String accept(long index, double value) {
+						return seen.add(Double.doubleToLongBits(value)) ? null : "value " + value + " is duplicated";
+					}
+				};
+			}
+
+			@Override
+			boolean matches(double[] values) {
+				final LongArrayMatcher.LongHashSet seen = new LongArrayMatcher.LongHashSet();
+				for (double value : values) {
+					if (!seen.add(Double.doubleToLongBits(value))) {
+						return false;
+					}
+				}
+				return true;
+			}
+		});
+	}
+
+	/**
+	 * @param min the minimum value, inclusive
+	 * @param max the maximum value, inclusive
+	 * @return a matcher checking that all the values are between the bounds
+	 */
+	public static DoubleArrayMatcher between(final double min, final double max) {
+		return new DoubleArrayMatcher(new Rule("values between " + min + " and " + max) {
+			@Override
+			Scan newScan() {
+				return new Scan() {
+					@Override
+					String accept(long index, double value) {
+						return value >= min && value <= max ? null : "value " + value + " is out of bounds";
+					}
+				};
+			}
+
+			@Override
+			boolean matches(double[] values) {
+				for (double value : values) {
+					if (!(value >= min && value <= max)) {
+						return false;
+					}
+				}
+				return true;
+			}
+		});
+	}
+
+	/**
+	 * @return a matcher checking that all the values are neither infinite nor NaN
+	 */
+	public static DoubleArrayMatcher finite() {
+		return new DoubleArrayMatcher(new Rule("finite values") {
+			@Override
+			Scan newScan() {
+				return new Scan() {
+					@Override
+					String accept(long index, double value) {
+						return Double.isNaN(value) || Double.isInfinite(value) ? "value " + value + " is not finite" : null;
+					}
+				};
+			}
+
+			@Override
+			boolean matches(double[] values) {
+				for (double value : values) {
+					if (Double.isNaN(value) || Double.isInfinite(value)) {
+						return false;
+					}
+				}
+				return true;
+			}
+		});
+	}
+
+	/**
+	 * Matcher checking the sum of the values. The sum is compensated (Kahan summation) so that
+	 * the rounding errors do not accumulate over large arrays.
+	 *
+	 * @param expected the expected sum
+	 * @param tolerance the maximum difference between the expected and the actual sum
+	 * @return the corresponding matcher
+	 */
+	public static DoubleArrayMatcher sum(final double expected, final double tolerance) {
+		return new DoubleArrayMatcher(new Rule("values summing to " + expected + " +/- " + tolerance) {
+			@Override
+			Scan newScan() {
+				return new Scan() {
+					private double sum;
+					private double compensation;
+
+					@Override
+					String accept(long index, double value) {
+						final double y = value - compensation;
+						final double t = sum + y;
+						compensation = (t - sum) - y;
+						sum = t;
+						return null;
+					}
+
+					@Override
+					String finish(long count) {
+						return Math.abs(sum - expected) <= tolerance ? null : "values sum to " + sum;
+					}
+				};
+			}
+
+			@Override
+			boolean matches(double[] values) {
+				double sum = 0;
+				double compensation = 0;
+				for (double value : values) {
+					final double y = value - compensation;
+					final double t = sum + y;
+					compensation = (t - sum) - y;
+					sum = t;
+				}
+				return Math.abs(sum - expected) <= tolerance;
+			}
+		});
+	}
+
+	/**
+	 * @param expected the expected checksum, as computed by {@link java.util.Arrays#hashCode(double[])}
+	 * @return a matcher checking the checksum of the values
+	 */
+	public static DoubleArrayMatcher checksum(final int expected) {
+		return new DoubleArrayMatcher(new Rule("values with checksum " + expected) {
+			@Override
+			Scan newScan() {
+				return new Scan() {
+					private int checksum = 1;
+
+					@Override
+					String accept(long index, double value) {
+						final long bits = Double.doubleToLongBits(value);
+						checksum = 31 * checksum + (int) (bits ^ (bits >>> 32));
+						return null;
+					}
+
+					@Override
+					String finish(long count) {
+						return checksum != expected ? "checksum of " + count + " values was " + checksum : null;
+					}
+				};
+			}
+
+			@Override
+			boolean matches(double[] values) {
+				int checksum = 1;
+				for (double value : values) {
+					final long bits = Double.doubleToLongBits(value);
+					checksum = 31 * checksum + (int) (bits ^ (bits >>> 32));
+				}
+				return checksum == expected;
+			}
+		});
+	}
+	//</editor-fold>
+
+	private static DoubleArrayMatcher ordered(String description, final int direction, final boolean strict) {
+		return new DoubleArrayMatcher(new Rule("values " + description) {
+			@Override
+			Scan newScan() {
+				return new Scan() {
+					private boolean first = true;
+					private double previous;
+
+					@Override
+					String accept(long index, double value) {
+						final int comparison = Double.compare(value, previous) * direction;
+						if (Double.isNaN(value) || !first && (comparison < 0 || strict && comparison == 0)) {
+							return "value " + value + " follows " + previous;
+						}
+						first = false;
+						previous = value;
+						return null;
+					}
+				};
+			}
+
+			@Override
+			boolean matches(double[] values) {
+				for (int i = 0; i < values.length; i++) {
+					final int comparison = i > 0 ? Double.compare(values[i], values[i - 1]) * direction : 1;
+					if (Double.isNaN(values[i]) || comparison < 0 || strict && comparison == 0) {
+						return false;
+					}
+				}
+				return true;
+			}
+		});
+	}
+
+	/**
+	 * Scans the values until the first violation, which is described with the values around it.
+	 */
+	private static boolean scan(Rule rule, final DoubleIterator iterator, Description mismatchDescription) {
+		final Scan scan = rule.newScan();
+
+		return new WindowedScan() {
+			private final double[] kept = new double[WINDOW];
+			private double current;
+
+			@Override
+			boolean hasNext() {
+				return iterator.hasNext();
+			}
+
+			@Override
+			String acceptNext(long index) {
+				current = iterator.nextDouble();
+				return scan.accept(index, current);
+			}
+
+			@Override
+			String finish(long count) {
+				return scan.finish(count);
+			}
+
+			@Override
+			void keepCurrent(int slot) {
+				kept[slot] = current;
+			}
+
+			@Override
+			void appendKept(StringBuilder sb, int slot) {
+				sb.append(kept[slot]);
+			}
+
+			@Override
+			void appendCurrent(StringBuilder sb) {
+				sb.append(current);
+			}
+
+			@Override
+			void appendNext(StringBuilder sb) {
+				sb.append(iterator.nextDouble());
+			}
+		}.run(mismatchDescription);
+	}
+}
@@ -0,0 +1,21 @@
+package com.lotaris.junit.matchers;
+
+/**
+ * Iterator over double values, which does not box them.
+ *
+ * @author Laurent Prevost <laurent.prevost@lotaris.com>
+ * @see PrimitiveIterators
+ */
+public interface DoubleIterator {
+
+	/**
+	 * @return true if the iteration has more values
+	 */
+	boolean hasNext();
+
+	/**
+	 * @return the next value
+	 * @throws java.util.NoSuchElementException if the iteration has no more values
+	 */
+	double nextDouble();
+}
@@ -0,0 +1,112 @@
+package com.lotaris.junit.matchers;
+
+import org.hamcrest.Description;
+import org.hamcrest.Matcher;
+import org.hamcrest.TypeSafeDiagnosingMatcher;
+
+/**
+ * Matchers of int arrays and iterators which do not box the values. The values are verified
+ * with the rules of {@link LongArrayMatcher}, in a loop over the int array or widened to long
+ * for iterators: the scan stops at the first violation and only the values around it are
+ * described.
+ *
+ * <p><pre>
+ * assertThat(ids, IntArrayMatcher.sorted());
+ * assertThat(ids, IntArrayMatcher.distinct());
+ * </pre>
+ *
+ * @author Laurent Prevost <laurent.prevost@lotaris.com>
+ */
+public class IntArrayMatcher extends TypeSafeDiagnosingMatcher<int[]> {
+
+	private final LongArrayMatcher.Rule rule;
+
+	private IntArrayMatcher(LongArrayMatcher.Rule rule) {
+		this.rule = rule;
+	}
+
+	@Override
+	public void describeTo(Description description) {
+		description.appendText(rule.description);
+	}
+
+	@Override
+	protected boolean matchesSafely(int[] item, Description mismatchDescription) {
+		return rule.matches(item) || LongArrayMatcher.scan(rule, PrimitiveIterators.widen(PrimitiveIterators.of(item)), mismatchDescription);
+	}
+
+	/**
+	 * @return the same matcher for iterators, which are consumed by the verification
+	 */
+	public Matcher<IntIterator> overIterator() {
+		return new IteratorMatcher<IntIterator>(IntIterator.class, rule.description) {
+			@Override
+			boolean scan(IntIterator item, Description mismatchDescription) {
+				return LongArrayMatcher.scan(rule, PrimitiveIterators.widen(item), mismatchDescription);
+			}
+		};
+	}
+
+	//<editor-fold defaultstate="collapsed" desc="Factories">
+	/**
+	 * @return a matcher checking that the values are sorted in ascending order (equal values allowed)
+	 */
+	public static IntArrayMatcher sorted() {
+		return new IntArrayMatcher(LongArrayMatcher.ordered("sorted in ascending order", 1, false));
+	}
+
+	/**
+	 * @return a matcher checking that the values are sorted in descending order (equal values allowed)
+	 */
+	public static IntArrayMatcher sortedDescending() {
+		return new IntArrayMatcher(LongArrayMatcher.ordered("sorted in descending order", -1, false));
+	}
+
+	/**
+	 * @return a matcher checking that each value is greater than the previous one
+	 */
+	public static IntArrayMatcher strictlyIncreasing() {
+		return new IntArrayMatcher(LongArrayMatcher.ordered("strictly increasing", 1, true));
+	}
+
+	/**
+	 * @return a matcher checking that each value is lower than the previous one
+	 */
+	public static IntArrayMatcher strictlyDecreasing() {
+		return new IntArrayMatcher(LongArrayMatcher.ordered("strictly decreasing", -1, true));
+	}
+
+	/**
+	 * @return a matcher checking that all the values are distinct
+	 * @see LongArrayMatcher#distinct()
+	 */
+	public static IntArrayMatcher distinct() {
+		return new IntArrayMatcher(LongArrayMatcher.distinctRule());
+	}
+
+	/**
+	 * @param min the minimum value, inclusive
+	 * @param max the maximum value, inclusive
+	 * @return a matcher checking that all the values are between the bounds
+	 */
+	public static IntArrayMatcher between(int min, int max) {
+		return new IntArrayMatcher(LongArrayMatcher.betweenRule(min, max));
+	}
+
+	/**
+	 * @param expected the expected sum
+	 * @return a matcher checking the sum of the values, computed as a long
+	 */
+	public static IntArrayMatcher sum(long expected) {
+		return new IntArrayMatcher(LongArrayMatcher.sumRule(expected));
+	}
+
+	/**
+	 * @param expected the expected checksum, as computed by {@link java.util.Arrays#hashCode(int[])}
+	 * @return a matcher checking the checksum of the values
+	 */
+	public static IntArrayMatcher checksum(int expected) {
+		return new IntArrayMatcher(LongArrayMatcher.checksumRule(expected, true));
+	}
+	//</editor-fold>
+}
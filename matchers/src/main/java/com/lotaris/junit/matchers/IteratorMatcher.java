@@ -0,0 +1,58 @@
+package com.lotaris.junit.matchers;
+
+import org.hamcrest.Description;
+import org.hamcrest.StringDescription;
+import org.hamcrest.TypeSafeDiagnosingMatcher;
+
+/**
+ * Base of the matchers of primitive iterators.
+ *
+ * <p>
+ * Iterators are consumed by the verification, whereas {@link org.junit.Assert#assertThat} calls
+ * the matcher a second time to describe the mismatch. The outcome of the last verification is
+ * therefore kept and replayed when the same iterator is matched again.
+ *
+ * @param <T> the type of iterator
+ * @author Laurent Prevost <laurent.prevost@lotaris.com>
+ */
+abstract class IteratorMatcher<T> extends TypeSafeDiagnosingMatcher<T> {
+
+	private final String description;
+
+	private T lastItem;
+	private String lastMismatch;
+
+	IteratorMatcher(Class<T> type, String description) {
+		super(type);
+		this.description = description;
+	}
+
+	/**
+	 * Consumes the iterator to verify its values.
+	 *
+	 * @param item the iterator
+	 * @param mismatchDescription the description of the first violation
+	 * @return true if the values match
+	 */
+	abstract boolean scan(T item, Description mismatchDescription);
+
+	@Override
+	public void describeTo(Description description) {
+		description.appendText(this.description);
+	}
+
+	@Override
+	protected boolean matchesSafely(T item, Description mismatchDescription) {
+		if (item != lastItem) {
+			final Description mismatch = new StringDescription();
+			lastMismatch = scan(item, mismatch) ? null : mismatch.toString();
+			lastItem = item;
+		}
+
+		if (lastMismatch != null) {
+			mismatchDescription.appendText(lastMismatch);
+			return false;
+		}
+		return true;
+	}
+}
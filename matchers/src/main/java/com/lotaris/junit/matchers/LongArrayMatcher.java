@@ -0,0 +1,487 @@
+package com.lotaris.junit.matchers;
+
+import org.hamcrest.Description;
+import org.hamcrest.Matcher;
+import org.hamcrest.TypeSafeDiagnosingMatcher;
+
+/**
+ * Matchers of long arrays and iterators which do not box the values.
+ *
+ * <p>
+ * The values of an array are verified by a plain loop which stops at the first violation,
+ * and only then are the values around the offending index collected for the mismatch
+ * description, so very large arrays can be verified quickly and reported concisely. The same matchers are available for iterators
+ * with {@link #overIterator()}.
+ *
+ * <p><pre>
+ * assertThat(timestamps, LongArrayMatcher.strictlyIncreasing());
+ * </pre>
+ *
+ * @author Laurent Prevost <laurent.prevost@lotaris.com>
+ */
+public class LongArrayMatcher extends TypeSafeDiagnosingMatcher<long[]> {
+
+	//<editor-fold defaultstate="collapsed" desc="Inner Classes">
+	/**
+	 * State of one verification of a rule
+	 */
+	abstract static class Scan {
+
+		/**
+		 * @param index the index of the value
+		 * @param value the value
+		 * @return the description of the violation, or null if the value follows the rule
+		 */
+		abstract String accept(long index, long value);
+
+		/**
+		 * @param count the number of scanned values
+		 * @return the description of the violation, or null if all the values follow the rule
+		 */
+		String finish(long count) {
+			return null;
+		}
+	}
+
+	/**
+	 * Rule verified by a matcher, creating a new scan for each verification
+	 */
+	abstract static class Rule {
+
+		final String description;
+
+		Rule(String description) {
+			this.description = description;
+		}
+
+		abstract Scan newScan();
+
+		/**
+		 * Verifies the values of an array in a single loop, without keeping the values around
+		 * the current one. A violation is then described by a {@link #newScan() scan}.
+		 *
+		 * @param values the values
+		 * @return true if all the values follow the rule
+		 */
+		abstract boolean matches(long[] values);
+
+		/**
+		 * @param values the values, verified as long values
+		 * @return true if all the values follow the rule
+		 * @see #matches(long[])
+		 */
+		abstract boolean matches(int[] values);
+	}
+	//</editor-fold>
+
+	private final Rule rule;
+
+	LongArrayMatcher(Rule rule) {
+		this.rule = rule;
+	}
+
+	@Override
+	public void describeTo(Description description) {
+		description.appendText(rule.description);
+	}
+
+	@Override
+	protected boolean matchesSafely(long[] item, Description mismatchDescription) {
+		// the scan describing the violation stops at it, so it reads no more values than the loop
+		return rule.matches(item) || scan(rule, PrimitiveIterators.of(item), mismatchDescription);
+	}
+
+	/**
+	 * @return the same matcher for iterators, which are consumed by the verification
+	 */
+	public Matcher<LongIterator> overIterator() {
+		return iteratorMatcher(rule);
+	}
+
+	//<editor-fold defaultstate="collapsed" desc="Factories">
+	/**
+	 * @return a matcher checking that the values are sorted in ascending order (equal values allowed)
+	 */
+	public static LongArrayMatcher sorted() {
+		return new LongArrayMatcher(ordered("sorted in ascending order", 1, false));
+	}
+
+	/**
+	 * @return a matcher checking that the values are sorted in descending order (equal values allowed)
+	 */
+	public static LongArrayMatcher sortedDescending() {
+		return new LongArrayMatcher(ordered("sorted in descending order", -1, false));
+	}
+
+	/**
+	 * @return a matcher checking that each value is greater than the previous one
+	 */
+	public static LongArrayMatcher strictlyIncreasing() {
+		return new LongArrayMatcher(ordered("strictly increasing", 1, true));
+	}
+
+	/**
+	 * @return a matcher checking that each value is lower than the previous one
+	 */
+	public static LongArrayMatcher strictlyDecreasing() {
+		return new LongArrayMatcher(ordered("strictly decreasing", -1, true));
+	}
+
+	/**
+	 * Matcher checking that all the values are distinct. The values already seen are kept in
+	 * a primitive hash set, which uses between 16 and 32 bytes per distinct value. For sorted values,
+	 * prefer {@link #strictlyIncreasing()} which uses no memory.
+	 *
+	 * @return the corresponding matcher
+	 */
+	public static LongArrayMatcher distinct() {
+		return new LongArrayMatcher(distinctRule());
+	}
+
+	/**
+	 * @param min the minimum value, inclusive
+	 * @param max the maximum value, inclusive
+	 * @return a matcher checking that all the values are between the bounds
+	 */
+	public static LongArrayMatcher between(long min, long max) {
+		return new LongArrayMatcher(betweenRule(min, max));
+	}
+
+	/**
+	 * @param expected the expected sum
+	 * @return a matcher checking the sum of the values, failing if the sum overflows
+	 */
+	public static LongArrayMatcher sum(long expected) {
+		return new LongArrayMatcher(sumRule(expected));
+	}
+
+	/**
+	 * @param expected the expected checksum, as computed by {@link java.util.Arrays#hashCode(long[])}
+	 * @return a matcher checking the checksum of the values
+	 */
+	public static LongArrayMatcher checksum(int expected) {
+		return new LongArrayMatcher(checksumRule(expected, false));
+	}
+	//</editor-fold>
+
+	//<editor-fold defaultstate="collapsed" desc="Rules">
+	static Rule ordered(String description, final int direction, final boolean strict) {
+		return new Rule("values " + description) {
+			@Override
+			Scan newScan() {
+				return new Scan() {
+					private boolean first = true;
+					private long previous;
+
+					@Override
+					String accept(long index, long value) {
+						final int comparison = Long.compare(value, previous) * direction;
+						if (!first && (comparison < 0 || strict && comparison == 0)) {
+							return "value " + value + " follows " + previous;
+						}
+						first = false;
+						previous = value;
+						return null;
+					}
+				};
+			}
+
+			@Override
+			boolean matches(long[] values) {
+				for (int i = 1; i < values.length; i++) {
+					final int comparison = Long.compare(values[i], values[i - 1]) * direction;
+					if (comparison < 0 || strict && comparison == 0) {
+						return false;
+					}
+				}
+				return true;
+			}
+
+			@Override
+			boolean matches(int[] values) {
+				for (int i = 1; i < values.length; i++) {
+					final int comparison = Integer.compare(values[i], values[i - 1]) * direction;
+					if (comparison < 0 || strict && comparison == 0) {
+						return false;
+					}
+				}
+				return true;
+			}
+		};
+	}
+
+	static Rule distinctRule() {
+		return new Rule("distinct values") {
+			@Override
+			Scan newScan() {
+				return new Scan() {
+					private final LongHashSet seen = new LongHashSet();
+
+					@Override
+					String accept(long index, long value) {
+						return seen.add(value) ? null : "value " + value + " is duplicated";
+					}
+				};
+			}
+
+			@Override
+			boolean matches(long[] values) {
+				final LongHashSet seen = new LongHashSet();
+				for (long value : values) {
+					if (!seen.add(value)) {
+						return false;
+					}
+				}
+				return true;
+			}
+
+			@Override
+			boolean matches(int[] values) {
+				final LongHashSet seen = new LongHashSet();
+				for (int value : values) {
+					if (!seen.add(value)) {
+						return false;
+					}
+				}
+				return true;
+			}
+		};
+	}
+
+	static Rule betweenRule(final long min, final long max) {
+		return new Rule("values between " + min + " and " + max) {
+			@Override
+			Scan newScan() {
+				return new Scan() {
+					@Override
+					String accept(long index, long value) {
+						return value < min || value > max ? "value " + value + " is out of bounds" : null;
+					}
+				};
+			}
+
+			@Override
+			boolean matches(long[] values) {
+				for (long value : values) {
+					if (value < min || value > max) {
+						return false;
+					}
+				}
+				return true;
+			}
+
+			@Override
+			boolean matches(int[] values) {
+				for (int value : values) {
+					if (value < min || value > max) {
+						return false;
+					}
+				}
+				return true;
+			}
+		};
+	}
+
+	static Rule sumRule(final long expected) {
+		return new Rule("values summing to " + expected) {
+			@Override
+			Scan newScan() {
+				return new Scan() {
+					private long sum;
+
+					@Override
+					String accept(long index, long value) {
+						final long result = sum + value;
+						if (((sum ^ result) & (value ^ result)) < 0) {
+							return "sum overflows when adding " + value;
+						}
+						sum = result;
+						return null;
+					}
+
+					@Override
+					String finish(long count) {
+						return sum != expected ? "values sum to " + sum : null;
+					}
+				};
+			}
+
+			@Override
+			boolean matches(long[] values) {
+				long sum = 0;
+				for (long value : values) {
+					final long result = sum + value;
+					if (((sum ^ result) & (value ^ result)) < 0) {
+						return false;
+					}
+					sum = result;
+				}
+				return sum == expected;
+			}
+
+			@Override
+			boolean matches(int[] values) {
+				// the sum of less than 2^31 int values cannot overflow a long
+				long sum = 0;
+				for (int value : values) {
+					sum += value;
+				}
+				return sum == expected;
+			}
+		};
+	}
+
+	static Rule checksumRule(final int expected, final boolean intValues) {
+		return new Rule("values with checksum " + expected) {
+			@Override
+			Scan newScan() {
+				return new Scan() {
+					private int checksum = 1;
+
+					@Override
+					String accept(long index, long value) {
+						checksum = 31 * checksum + (intValues ? (int) value : (int) (value ^ (value >>> 32)));
+						return null;
+					}
+
+					@Override
+					String finish(long count) {
+						return checksum != expected ? "checksum of " + count + " values was " + checksum : null;
+					}
+				};
+			}
+
+			@Override
+			boolean matches(long[] values) {
+				int checksum = 1;
+				for (long value : values) {
+					checksum = 31 * checksum + (intValues ? (int) value : (int) (value ^ (value >>> 32)));
+				}
+				return checksum == expected;
+			}
+
+			@Override
+			boolean matches(int[] values) {
+				int checksum = 1;
+				for (int value : values) {
+					checksum = 31 * checksum + value;
+				}
+				return checksum == expected;
+			}
+		};
+	}
+	//</editor-fold>
+
+	static Matcher<LongIterator> iteratorMatcher(final Rule rule) {
+		return new IteratorMatcher<LongIterator>(LongIterator.class, rule.description) {
+			@Override
+			boolean scan(LongIterator item, Description mismatchDescription) {
+				return LongArrayMatcher.scan(rule, item, mismatchDescription);
+			}
+		};
+	}
+
+	/**
+	 * Scans the values until the first violation, which is described with the values around it.
+	 */
+	static boolean scan(Rule rule, final LongIterator iterator, Description mismatchDescription) {
+		final Scan scan = rule.newScan();
+
+		return new WindowedScan() {
+			private final long[] kept = new long[WINDOW];
+			private long current;
+
+			@Override
+			boolean hasNext() {
+				return iterator.hasNext();
+			}
+
+			@Override
+			String acceptNext(long index) {
+				current = iterator.nextLong();
+				return scan.accept(index, current);
+			}
+
+			@Override
+			String finish(long count) {
+				return scan.finish(count);
+			}
+
+			@Override
+			void keepCurrent(int slot) {
+				kept[slot] = current;
+			}
+
+			@Override
+			void appendKept(StringBuilder sb, int slot) {
+				sb.append(kept[slot]);
+			}
+
+			@Override
+			void appendCurrent(StringBuilder sb) {
+				sb.append(current);
+			}
+
+			@Override
+			void appendNext(StringBuilder sb) {
+				sb.append(iterator.nextLong());
+			}
+		}.run(mismatchDescription);
+	}
+
+	/**
+	 * Open addressing hash set of long values
+	 */
+	static final class LongHashSet {
+		private static final long EMPTY = 0;
+
+		private long[] table = new long[64];
+		private int size;
+		private boolean containsEmpty;
+
+		/**
+		 * @param value the value to add
+		 * @return true if the set did not contain the value
+		 */
+		boolean add(long value) {
+			if (value == EMPTY) {
+				final boolean added = !containsEmpty;
+				containsEmpty = true;
+				return added;
+			}
+
+			int slot = slot(value, table.length);
+			while (table[slot] != EMPTY) {
+				if (table[slot] == value) {
+					return false;
+				}
+				slot = (slot + 1) & (table.length - 1);
+			}
+
+			table[slot] = value;
+			if (++size * 2 > table.length) {
+				grow();
+			}
+			return true;
+		}
+
+		private void grow() {
+			final long[] old = table;
+			table = new long[old.length * 2];
+			for (long value : old) {
+				if (value != EMPTY) {
+					int slot = slot(value, table.length);
+					while (table[slot] != EMPTY) {
+						slot = (slot + 1) & (table.length - 1);
+					}
+					table[slot] = value;
+				}
+			}
+		}
+
+		private static int slot(long value, int length) {
+			final long hash = value * 0x9E3779B97F4A7C15L;
+			return (int) (hash ^ (hash >>> 32)) & (length - 1);
+		}
+	}
+}
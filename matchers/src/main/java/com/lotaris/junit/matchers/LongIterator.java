@@ -0,0 +1,21 @@
+package com.lotaris.junit.matchers;
+
+/**
+ * Iterator over long values, which does not box them.
+ *
+ * @author Laurent Prevost <laurent.prevost@lotaris.com>
+ * @see PrimitiveIterators
+ */
+public interface LongIterator {
+
+	/**
+	 * @return true if the iteration has more values
+	 */
+	boolean hasNext();
+
+	/**
+	 * @return the next value
+	 * @throws java.util.NoSuchElementException if the iteration has no more values
+	 */
+	long nextLong();
+}
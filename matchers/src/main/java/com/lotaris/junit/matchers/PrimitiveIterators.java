@@ -0,0 +1,103 @@
+package com.lotaris.junit.matchers;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Factory methods of primitive iterators.
+ *
+ * @author Laurent Prevost <laurent.prevost@lotaris.com>
+ */
+public final class PrimitiveIterators {
+
+	/**
+	 * @param values the values to iterate over
+	 * @return an iterator over the array, which is not copied
+	 */
+	public static IntIterator of(final int[] values) {
+		return new IntIterator() {
+			private int index;
+
+			@Override
+			public boolean hasNext() {
+				return index < values.length;
+			}
+
+			@Override
+			public int nextInt() {
+				if (index >= values.length) {
+					throw new NoSuchElementException();
+				}
+				return values[index++];
+			}
+		};
+	}
+
+	/**
+	 * @param values the values to iterate over
+	 * @return an iterator over the array, which is not copied
+	 */
+	public static LongIterator of(final long[] values) {
+		return new LongIterator() {
+			private int index;
+
+			@Override
+			public boolean hasNext() {
+				return index < values.length;
+			}
+
+			@Override
+			public long nextLong() {
+				if (index >= values.length) {
+					throw new NoSuchElementException();
+				}
+				return values[index++];
+			}
+		};
+	}
+
+	/**
+	 * @param values the values to iterate over
+	 * @return an iterator over the array, which is not copied
+	 */
+	public static DoubleIterator of(final double[] values) {
+		return new DoubleIterator() {
+			private int index;
+
+			@Override
+			public boolean hasNext() {
+				return index < values.length;
+			}
+
+			@Override
+			public double nextDouble() {
+				if (index >= values.length) {
+					throw new NoSuchElementException();
+				}
+				return values[index++];
+			}
+		};
+	}
+
+	/**
+	 * @param iterator the int iterator
+	 * @return a long iterator over the values of the int iterator
+	 */
+	public static LongIterator widen(final IntIterator iterator) {
+		return new LongIterator() {
+			@Override
+			public boolean hasNext() {
+				return iterator.hasNext();
+			}
+
+			@Override
+			public long nextLong() {
+				return iterator.nextInt();
+			}
+		};
+	}
+
+	//<editor-fold defaultstate="collapsed" desc="Hidden Constructor">
+	private PrimitiveIterators() {
+	}
+	//</editor-fold>
+}
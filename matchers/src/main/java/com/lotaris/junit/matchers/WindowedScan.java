@@ -0,0 +1,101 @@
+package com.lotaris.junit.matchers;
+
+import org.hamcrest.Description;
+
+/**
+ * Loop shared by the primitive matchers, scanning the values until the first violation and
+ * describing it with the values around it. It verifies the iterators, which cannot be read
+ * again, and describes the violations found in arrays, which are verified by a loop of their
+ * own without keeping any value.
+ *
+ * <p>
+ * The values are read and kept by the subclasses, so that they are never boxed.
+ *
+ * @author Laurent Prevost <laurent.prevost@lotaris.com>
+ */
+abstract class WindowedScan {
+
+	/**
+	 * Number of values shown before and after the offending value
+	 */
+	static final int WINDOW = 5;
+
+	/**
+	 * @param mismatchDescription the description of the first violation
+	 * @return true if all the values follow the rule
+	 */
+	final boolean run(Description mismatchDescription) {
+		long index = 0;
+
+		while (hasNext()) {
+			final String violation = acceptNext(index);
+
+			if (violation != null) {
+				final StringBuilder window = new StringBuilder(index > WINDOW ? "[..., " : "[");
+				for (long i = Math.max(0, index - WINDOW); i < index; i++) {
+					appendKept(window, (int) (i % WINDOW));
+					window.append(", ");
+				}
+				window.append('>');
+				appendCurrent(window);
+				window.append('<');
+				int after = 0;
+				while (after < WINDOW && hasNext()) {
+					window.append(", ");
+					appendNext(window);
+					after++;
+				}
+				window.append(hasNext() ? ", ...]" : "]");
+
+				mismatchDescription.appendText(violation + " at index " + index + ": " + window);
+				return false;
+			}
+
+			keepCurrent((int) (index % WINDOW));
+			index++;
+		}
+
+		final String violation = finish(index);
+		if (violation != null) {
+			mismatchDescription.appendText(violation);
+			return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * @return true if there are more values
+	 */
+	abstract boolean hasNext();
+
+	/**
+	 * Reads the next value, which becomes the current one, and verifies it.
+	 *
+	 * @param index the index of the value
+	 * @return the description of the violation, or null if the value follows the rule
+	 */
+	abstract String acceptNext(long index);
+
+	/**
+	 * @param count the number of scanned values
+	 * @return the description of the violation, or null if all the values follow the rule
+	 */
+	abstract String finish(long count);
+
+	/**
+	 * Keeps the current value to show it if a following value violates the rule.
+	 *
+	 * @param slot the slot of the value, less than {@link #WINDOW}
+	 */
+	abstract void keepCurrent(int slot);
+
+	abstract void appendKept(StringBuilder sb, int slot);
+
+	abstract void appendCurrent(StringBuilder sb);
+
+	/**
+	 * Reads the next value and appends it.
+	 */
+	abstract void appendNext(StringBuilder sb);
+}
@@ -0,0 +1,194 @@
+package com.lotaris.junit.mockito;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.mockito.Mockito;
+import org.mockito.internal.stubbing.InvocationContainer;
+import org.mockito.internal.util.MockUtil;
+import org.mockito.invocation.Invocation;
+import org.mockito.stubbing.Answer;
+
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Pool of Mockito mocks reused from one test to the next instead of being created again.
+ *
+ * <p>
+ * A mock is acquired by one test at a time. When it is released, its stubbing and its
+ * recorded invocations are reset and it becomes available for the next test acquiring the
+ * same type with the same default answer. When tests run one after the other, each mock
+ * type is therefore created once per JVM (i.e. once per surefire fork).
+ *
+ * <p>
+ * A released mock must not be used anymore. The pool checks it when the mock is acquired
+ * again: a mock invoked after its release, typically through a static field or a thread
+ * which outlived the test, is discarded and reported as a leak.
+ *
+ * <p>
+ * The pools are keyed by class, so with the PowerMock runner, which loads each test class
+ * in its own class loader, mocks are only shared between the tests of different classes if
+ * the mocked types and this package are excluded from the PowerMock class loader with
+ * {@code @PowerMockIgnore}.
+ *
+ * @author Laurent Prevost <laurent.prevost@lotaris.com>
+ * @see MockPoolRule
+ */
+public final class MockPool {
+
+	private static final MockPool SHARED = new MockPool();
+
+	private static final MockUtil MOCK_UTIL = new MockUtil();
+
+	private final ConcurrentMap<Key, Queue<Entry>> available = new ConcurrentHashMap<>();
+	private final AtomicLong created = new AtomicLong();
+	private final AtomicLong reused = new AtomicLong();
+
+	//<editor-fold defaultstate="collapsed" desc="Inner Classes">
+	/**
+	 * Type and default answer of the mocks of a pool
+	 */
+	private static final class Key {
+
+		private final Class<?> type;
+		private final Answer<?> defaultAnswer;
+
+		Key(Class<?> type, Answer<?> defaultAnswer) {
+			this.type = type;
+			this.defaultAnswer = defaultAnswer;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			final Key other = (Key) obj;
+			return type == other.type && defaultAnswer.equals(other.defaultAnswer);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * type.hashCode() + defaultAnswer.hashCode();
+		}
+	}
+
+	/**
+	 * Available mock with the description of the test which released it
+	 */
+	private static final class Entry {
+
+		private final Object mock;
+		private final String releasedBy;
+
+		Entry(Object mock, String releasedBy) {
+			this.mock = mock;
+			this.releasedBy = releasedBy;
+		}
+	}
+
+	/**
+	 * Error reporting a mock used after its release
+	 */
+	public static class LeakedMockException extends AssertionError {
+
+		private static final long serialVersionUID = 1L;
+
+		LeakedMockException(String message) {
+			super(message);
+		}
+	}
+	//</editor-fold>
+
+	/**
+	 * @return the pool shared by all the tests of the JVM
+	 */
+	public static MockPool shared() {
+		return SHARED;
+	}
+
+	/**
+	 * Acquires a mock returning the default values (null, 0, false, empty collections).
+	 *
+	 * @param <T> the mocked type
+	 * @param type the class or interface to mock
+	 * @return a mock without any stubbing nor recorded invocation
+	 * @throws LeakedMockException if the available mock was used after its release, in which case it is discarded
+	 */
+	public <T> T acquire(Class<T> type) {
+		return acquire(type, Mockito.RETURNS_DEFAULTS);
+	}
+
+	/**
+	 * Acquires a mock with the specified default answer, e.g. {@link Mockito#RETURNS_DEEP_STUBS}.
+	 *
+	 * @param <T> the mocked type
+	 * @param type the class or interface to mock
+	 * @param defaultAnswer the answer of the invocations which are not stubbed
+	 * @return a mock without any stubbing nor recorded invocation
+	 * @throws LeakedMockException if the available mock was used after its release, in which case it is discarded
+	 */
+	public <T> T acquire(Class<T> type, Answer<?> defaultAnswer) {
+		final Queue<Entry> entries = available.get(new Key(type, defaultAnswer));
+		final Entry entry = entries != null ? entries.poll() : null;
+
+		if (entry == null) {
+			created.incrementAndGet();
+			return Mockito.mock(type, withSettings().defaultAnswer(defaultAnswer));
+		}
+
+		// the invocations are read directly, as Mockito.verifyZeroInteractions would also validate
+		// the stubbing in progress, e.g. when(a.b()).thenReturn(pool.acquire(B.class))
+		final InvocationContainer container = MOCK_UTIL.getMockHandler(entry.mock).getInvocationContainer();
+		final List<Invocation> invocations = container.getInvocations();
+		if (!invocations.isEmpty() || !container.getStubbedInvocations().isEmpty()) {
+			throw new LeakedMockException("The mock of " + type.getName() + " released by " + entry.releasedBy
+				+ " was used after its release" + (invocations.isEmpty() ? "" : " (" + invocations.get(0) + ")")
+				+ ", is it still referenced by a static field or a thread?");
+		}
+
+		reused.incrementAndGet();
+		return type.cast(entry.mock);
+	}
+
+	/**
+	 * Resets a mock acquired from this pool and makes it available again. The mock must not be
+	 * used by the caller anymore.
+	 *
+	 * @param mock the mock to release
+	 * @param type the type the mock was acquired with
+	 * @param defaultAnswer the default answer the mock was acquired with
+	 * @param releasedBy the description of the releasing test, used to report the leaks
+	 */
+	public void release(Object mock, Class<?> type, Answer<?> defaultAnswer, String releasedBy) {
+		Mockito.reset(mock);
+
+		final Key key = new Key(type, defaultAnswer);
+		Queue<Entry> entries = available.get(key);
+		if (entries == null) {
+			final Queue<Entry> newEntries = new ConcurrentLinkedQueue<>();
+			entries = available.putIfAbsent(key, newEntries);
+			if (entries == null) {
+				entries = newEntries;
+			}
+		}
+		entries.add(new Entry(mock, releasedBy));
+	}
+
+	/**
+	 * @return the number of mocks created by this pool
+	 */
+	public long getCreatedCount() {
+		return created.get();
+	}
+
+	/**
+	 * @return the number of times a mock was reused instead of being created
+	 */
+	public long getReusedCount() {
+		return reused.get();
+	}
+}
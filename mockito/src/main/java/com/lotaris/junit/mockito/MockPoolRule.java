@@ -0,0 +1,200 @@
+package com.lotaris.junit.mockito;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.rules.MethodRule;
+import org.junit.runners.model.FrameworkMethod;
+import org.junit.runners.model.Statement;
+import org.mockito.Mockito;
+import org.mockito.internal.progress.MockingProgress;
+import org.mockito.internal.progress.ThreadSafeMockingProgress;
+import org.mockito.stubbing.Answer;
+
+/**
+ * JUnit rule providing the tests with mocks from a {@link MockPool} instead of creating
+ * them in each test.
+ *
+ * <p>
+ * Before each test, the fields annotated with {@link Pooled} are set with mocks acquired
+ * from the pool. Other mocks can be acquired during the test with {@link #mock(Class)}.
+ * After the test, the usage of Mockito is validated, so that an unfinished stubbing or
+ * verification does not leak into the next test, and all the mocks are reset and released
+ * to the pool. The fields are set back to null, so the test instance does not keep them.
+ * A failure while releasing the mocks never hides the failure of the test, it is added to
+ * it as a suppressed exception.
+ *
+ * <p><pre>
+ * &#64;Rule
+ * public MockPoolRule mocks = new MockPoolRule();
+ *
+ * &#64;Pooled
+ * private UserService userService;
+ *
+ * &#64;Test
+ * public void registrationShouldCreateTheUser() {
+ *   AuditService auditService = mocks.mock(AuditService.class);
+ *   new Registration(userService, auditService).register("john");
+ *   verify(userService).create("john");
+ * }
+ * </pre>
+ *
+ * @author Laurent Prevost <laurent.prevost@lotaris.com>
+ */
+public class MockPoolRule implements MethodRule {
+
+	/**
+	 * Stubbing and verification state of Mockito, kept per thread
+	 */
+	private static final MockingProgress MOCKING_PROGRESS = new ThreadSafeMockingProgress();
+
+	private final MockPool pool;
+
+	private final List<Acquired> acquired = new ArrayList<>();
+	private String test;
+
+	/**
+	 * Mock acquired during the current test
+	 */
+	private static final class Acquired {
+
+		private final Object mock;
+		private final Class<?> type;
+		private final Answer<?> defaultAnswer;
+
+		Acquired(Object mock, Class<?> type, Answer<?> defaultAnswer) {
+			this.mock = mock;
+			this.type = type;
+			this.defaultAnswer = defaultAnswer;
+		}
+	}
+
+	/**
+	 * Creates a rule using the pool shared by all the tests of the JVM.
+	 */
+	public MockPoolRule() {
+		this(MockPool.shared());
+	}
+
+	/**
+	 * @param pool the pool providing the mocks
+	 */
+	public MockPoolRule(MockPool pool) {
+		this.pool = pool;
+	}
+
+	@Override
+	public Statement apply(final Statement base, final FrameworkMethod method, final Object target) {
+		return new Statement() {
+			@Override
+			public void evaluate() throws Throwable {
+				test = target.getClass().getName() + "#" + method.getName();
+
+				Throwable failure = null;
+				try {
+					injectFields(target);
+					base.evaluate();
+					Mockito.validateMockitoUsage();
+				} catch (Throwable t) {
+					failure = t;
+				}
+
+				// a test failing in the middle of a stubbing leaves it unfinished, which would fail the reset of the mocks
+				MOCKING_PROGRESS.reset();
+
+				failure = releaseAll(failure);
+				try {
+					clearFields(target);
+				} catch (Throwable t) {
+					failure = suppress(failure, t);
+				} finally {
+					test = null;
+				}
+
+				if (failure != null) {
+					throw failure;
+				}
+			}
+		};
+	}
+
+	/**
+	 * Acquires a mock returning the default values for the current test.
+	 *
+	 * @param <T> the mocked type
+	 * @param type the class or interface to mock
+	 * @return the mock, released after the test
+	 */
+	public <T> T mock(Class<T> type) {
+		return mock(type, Mockito.RETURNS_DEFAULTS);
+	}
+
+	/**
+	 * Acquires a mock with the specified default answer for the current test.
+	 *
+	 * @param <T> the mocked type
+	 * @param type the class or interface to mock
+	 * @param defaultAnswer the answer of the invocations which are not stubbed
+	 * @return the mock, released after the test
+	 */
+	public <T> T mock(Class<T> type, Answer<?> defaultAnswer) {
+		if (test == null) {
+			throw new IllegalStateException("Mocks can only be acquired while a test is running, is the rule annotated with @Rule?");
+		}
+
+		final T mock = pool.acquire(type, defaultAnswer);
+		acquired.add(new Acquired(mock, type, defaultAnswer));
+		return mock;
+	}
+
+	private void injectFields(Object target) throws IllegalAccessException {
+		for (Class<?> c = target.getClass(); c != Object.class; c = c.getSuperclass()) {
+			for (Field field : c.getDeclaredFields()) {
+				if (field.isAnnotationPresent(Pooled.class)) {
+					field.setAccessible(true);
+					field.set(target, mock(field.getType()));
+				}
+			}
+		}
+	}
+
+	private void clearFields(Object target) throws IllegalAccessException {
+		for (Class<?> c = target.getClass(); c != Object.class; c = c.getSuperclass()) {
+			for (Field field : c.getDeclaredFields()) {
+				if (field.isAnnotationPresent(Pooled.class)) {
+					field.setAccessible(true);
+					field.set(target, null);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Releases all the acquired mocks, even if some of them cannot be released.
+	 *
+	 * @param failure the failure of the test, if any
+	 * @return the failure of the test, or of the release if the test passed, with the other release failures suppressed
+	 */
+	private Throwable releaseAll(Throwable failure) {
+		try {
+			for (Acquired mock : acquired) {
+				try {
+					pool.release(mock.mock, mock.type, mock.defaultAnswer, test);
+				} catch (Throwable t) {
+					failure = suppress(failure, t);
+				}
+			}
+		} finally {
+			acquired.clear();
+		}
+		return failure;
+	}
+
+	private static Throwable suppress(Throwable failure, Throwable cleanupFailure) {
+		if (failure == null) {
+			return cleanupFailure;
+		}
+		failure.addSuppressed(cleanupFailure);
+		return failure;
+	}
+}
@@ -0,0 +1,17 @@
+package com.lotaris.junit.mockito;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a field of a test class to be set with a mock from the {@link MockPool} before each
+ * test, by the {@link MockPoolRule}.
+ *
+ * @author Laurent Prevost <laurent.prevost@lotaris.com>
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface Pooled {
+}
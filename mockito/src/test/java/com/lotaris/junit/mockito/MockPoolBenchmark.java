@@ -0,0 +1,79 @@
+package com.lotaris.junit.mockito;
+
+import com.lotaris.junit.perf.LatencyHistogram;
+import com.lotaris.junit.perf.Measurements;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.concurrent.Callable;
+import org.mockito.Mockito;
+
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Compares the cost of a typical test creating its mocks to the same test acquiring them
+ * from a {@link MockPool}. The mocked JDBC interfaces have between 50 and 200 methods,
+ * like large service interfaces.
+ *
+ * <p><pre>
+ * mvn -pl mockito -am test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.lotaris.junit.mockito.MockPoolBenchmark
+ * </pre>
+ *
+ * @author Laurent Prevost <laurent.prevost@lotaris.com>
+ */
+public class MockPoolBenchmark {
+
+	private static final int WARMUP_ITERATIONS = 200;
+	private static final int MEASUREMENT_ITERATIONS = 2000;
+
+	public static void main(String[] args) throws Exception {
+		final LatencyHistogram created = Measurements.measureLatency(new Callable<Object>() {
+			@Override
+			public Object call() throws Exception {
+				return runTest(Mockito.mock(Connection.class), Mockito.mock(DatabaseMetaData.class), Mockito.mock(ResultSet.class));
+			}
+		}, WARMUP_ITERATIONS, MEASUREMENT_ITERATIONS);
+
+		final MockPool pool = new MockPool();
+		final LatencyHistogram pooled = Measurements.measureLatency(new Callable<Object>() {
+			@Override
+			public Object call() throws Exception {
+				final Connection connection = pool.acquire(Connection.class);
+				final DatabaseMetaData metaData = pool.acquire(DatabaseMetaData.class);
+				final ResultSet resultSet = pool.acquire(ResultSet.class);
+				try {
+					return runTest(connection, metaData, resultSet);
+				} finally {
+					pool.release(connection, Connection.class, Mockito.RETURNS_DEFAULTS, "benchmark");
+					pool.release(metaData, DatabaseMetaData.class, Mockito.RETURNS_DEFAULTS, "benchmark");
+					pool.release(resultSet, ResultSet.class, Mockito.RETURNS_DEFAULTS, "benchmark");
+				}
+			}
+		}, WARMUP_ITERATIONS, MEASUREMENT_ITERATIONS);
+
+		System.out.println("Mocks created in each test: " + created);
+		System.out.println("Mocks from the pool:        " + pooled);
+		System.out.println(String.format("Saving per test: %s (%.1f%%), %d mocks created and %d reused by the pool",
+			LatencyHistogram.format(created.getMean() - pooled.getMean()), 100 * (1 - pooled.getMean() / created.getMean()),
+			pool.getCreatedCount(), pool.getReusedCount()));
+	}
+
+	/**
+	 * Typical test body: a few stubbings, invocations and verifications
+	 */
+	private static Object runTest(Connection connection, DatabaseMetaData metaData, ResultSet resultSet) throws Exception {
+		when(connection.getMetaData()).thenReturn(metaData);
+		when(metaData.getDatabaseProductName()).thenReturn("H2");
+		when(resultSet.next()).thenReturn(true, false);
+
+		final String product = connection.getMetaData().getDatabaseProductName();
+		while (resultSet.next()) {
+			resultSet.getString(1);
+		}
+
+		verify(connection).getMetaData();
+		verify(resultSet).getString(1);
+		return product;
+	}
+}
@@ -0,0 +1,103 @@
+package com.lotaris.junit.mockito;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.RETURNS_DEFAULTS;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Laurent Prevost <laurent.prevost@lotaris.com>
+ */
+public class MockPoolRuleTest {
+
+	/**
+	 * Pool of the fixture tests, isolated from the shared pool
+	 */
+	private static MockPool fixturePool;
+
+	/**
+	 * Tests run by the tests of the rule, not directly by surefire
+	 */
+	public static class StubbingWithPooledMock {
+
+		@Rule
+		public MockPoolRule mocks = new MockPoolRule(fixturePool);
+
+		@Test
+		public void stubbingShouldReturnAMockAcquiredInTheStubbing() throws SQLException {
+			final Connection connection = mocks.mock(Connection.class);
+			when(connection.getMetaData()).thenReturn(mocks.mock(DatabaseMetaData.class));
+			when(connection.getMetaData().getDatabaseProductName()).thenReturn("h2");
+
+			assertEquals("h2", connection.getMetaData().getDatabaseProductName());
+		}
+	}
+
+	/**
+	 * Test failing in the middle of a stubbing
+	 */
+	public static class UnfinishedStubbing {
+
+		@Rule
+		public MockPoolRule mocks = new MockPoolRule(fixturePool);
+
+		@Test
+		public void failingInTheMiddleOfAStubbing() throws SQLException {
+			when(mocks.mock(Connection.class).getCatalog());
+			throw new IllegalStateException("test failure");
+		}
+	}
+
+	@Test
+	public void acquiringAPooledMockWhileStubbingShouldNotFail() {
+		fixturePool = new MockPool();
+
+		for (int i = 0; i < 3; i++) {
+			final Result result = JUnitCore.runClasses(StubbingWithPooledMock.class);
+			assertTrue(result.getFailures().toString(), result.wasSuccessful());
+		}
+
+		assertEquals(2, fixturePool.getCreatedCount());
+		assertEquals(4, fixturePool.getReusedCount());
+	}
+
+	@Test
+	public void failureInTheMiddleOfAStubbingShouldBeReportedAndNotLeak() {
+		fixturePool = new MockPool();
+
+		final Result failed = JUnitCore.runClasses(UnfinishedStubbing.class);
+		assertEquals(1, failed.getFailureCount());
+		assertEquals("test failure", failed.getFailures().get(0).getMessage());
+
+		final Result next = JUnitCore.runClasses(StubbingWithPooledMock.class);
+		assertTrue(next.getFailures().toString(), next.wasSuccessful());
+		assertEquals(1, fixturePool.getReusedCount());
+	}
+
+	@Test
+	public void mockUsedAfterItsReleaseShouldBeReportedAsLeaked() throws SQLException {
+		final MockPool pool = new MockPool();
+		final Connection connection = pool.acquire(Connection.class);
+		pool.release(connection, Connection.class, RETURNS_DEFAULTS, "test");
+		connection.close();
+
+		try {
+			pool.acquire(Connection.class);
+			fail("The leaked mock should have been reported");
+		} catch (MockPool.LeakedMockException lme) {
+			assertTrue(lme.getMessage(), lme.getMessage().contains("released by test"));
+		}
+
+		pool.acquire(Connection.class);
+		assertEquals(2, pool.getCreatedCount());
+	}
+}